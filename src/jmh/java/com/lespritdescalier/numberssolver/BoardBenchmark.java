@@ -0,0 +1,39 @@
+package com.lespritdescalier.numberssolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BoardBenchmark {
+	private Board board;
+	private Position occupied;
+	private Position unoccupied;
+
+	@Setup
+	public void setUp() {
+		board = new Board(10);
+		occupied = new Position(2, 3);
+		unoccupied = new Position(7, 6);
+		board.addNumber(occupied, 1);
+	}
+
+	@Benchmark
+	public void addAndRemoveNumber() {
+		board.addNumber(unoccupied, 2);
+		board.removeNumber(unoccupied);
+	}
+
+	@Benchmark
+	public boolean isPositionOccupied() {
+		return board.isPositionOccupied(occupied);
+	}
+}
@@ -0,0 +1,72 @@
+package com.lespritdescalier.numberssolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The search of a 5x5 board with each execution strategy, both computing only
+ * and writing the solutions to a file through a blocking sink. Virtual
+ * threads can be included with {@code -p strategy=VIRTUAL_THREADS} when
+ * running on Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionStrategyBenchmark {
+	@Param({"WORK_STEALING", "PLATFORM_POOL"})
+	public ExecutionStrategy strategy;
+
+	@Param({"2", "4"})
+	public int splitDepth;
+
+	private Path solutionFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		solutionFile = Files.createTempFile("solutions", ".bin");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(solutionFile);
+	}
+
+	private PuzzleSolver createSolver() {
+		final PuzzleSolver solver = new PuzzleSolver(5, SearchEngine.BITBOARD);
+		solver.setExecutionStrategy(strategy);
+		solver.setSplitDepth(splitDepth);
+		return solver;
+	}
+
+	@Benchmark
+	public long countSolutions() {
+		final PuzzleSolver solver = createSolver();
+		solver.countSolutions();
+		return solver.getSolutionCount();
+	}
+
+	@Benchmark
+	public long writeSolutions() throws IOException {
+		final PuzzleSolver solver = createSolver();
+		solver.writeSolutions(solutionFile);
+		return solver.getSolutionCount();
+	}
+}
@@ -0,0 +1,55 @@
+package com.lespritdescalier.numberssolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full search of a board, including expanding the solutions by symmetry,
+ * either when they are accessed or during the search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PuzzleSolverBenchmark {
+	@Param({"4", "5"})
+	public int boardSize;
+
+	@Param({"BOARD", "BITBOARD"})
+	public SearchEngine engine;
+
+	@Param({"false", "true"})
+	public boolean expandSolutions;
+
+	@Benchmark
+	public int findSolutions() {
+		final PuzzleSolver solver = new PuzzleSolver(boardSize, engine);
+		solver.setExpandSolutions(expandSolutions);
+		solver.findSolutions();
+		// iterate the solutions to include the lazily deduced ones
+		int moves = 0;
+		for (Solution solution : solver.getSolutions()) {
+			moves += solution.moves.size();
+		}
+		return moves;
+	}
+
+	@Benchmark
+	public long countSolutions() {
+		final PuzzleSolver solver = new PuzzleSolver(boardSize, engine);
+		solver.countSolutions();
+		return solver.getSolutionCount();
+	}
+}
@@ -0,0 +1,31 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SolutionBenchmark {
+	private final Solution solution = new Solution(new Position(1, 1), ImmutableList.of(
+			Move.E, Move.SW, Move.NW, Move.S, Move.E, Move.N, Move.SW, Move.E, Move.N, Move.W,
+			Move.SE, Move.SW, Move.E, Move.NW, Move.NW, Move.S, Move.E, Move.N, Move.SW, Move.E,
+			Move.NW, Move.SW, Move.SE, Move.N));
+
+	@Benchmark
+	public Solution rotate() {
+		return solution.rotate(5);
+	}
+
+	@Benchmark
+	public Solution mirrorDiagonally() {
+		return solution.mirrorDiagonally();
+	}
+}
@@ -0,0 +1,57 @@
+package com.lespritdescalier.numberssolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The search from each unique starting point of a 5x5 and a 6x6 board, with
+ * each engine. Both boards have the same unique starting points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverForStartingPointBenchmark {
+	@Param({"5", "6"})
+	public int boardSize;
+
+	@Param({"0,0", "1,0", "1,1", "2,0", "2,1", "2,2"})
+	public String startCell;
+
+	@Param({"BOARD", "BITBOARD"})
+	public SearchEngine engine;
+
+	private Position startPosition;
+	private SuccessorTable successors;
+
+	@Setup
+	public void setUp() {
+		final String[] coordinates = startCell.split(",");
+		startPosition = new Position(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]));
+		successors = SuccessorTable.compile(boardSize);
+	}
+
+	@Benchmark
+	public List<Solution> searchSolutions() {
+		return engine.createSolver(startPosition, successors).searchSolutions();
+	}
+
+	@Benchmark
+	public SolutionCount countSolutions() {
+		return engine.createSolver(startPosition, successors).countSolutions();
+	}
+}
@@ -0,0 +1,253 @@
+package com.lespritdescalier.numberssolver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The parts of a {@link StartingPointSolver} on a {@link BitboardSearch} that
+ * don't depend on how the search walks the tree: collecting or counting the
+ * solutions, resuming from and updating a checkpoint, reporting the progress
+ * and keeping the transposition table. The subclasses only implement the
+ * search from the end of the move prefix.
+ */
+abstract class AbstractBitboardSolver extends BitboardSearch implements StartingPointSolver {
+	/**
+	 * The number of moves that must be left to make from a state for its
+	 * count to be stored in the transposition table. Smaller subtrees are
+	 * faster to search again than to look up.
+	 */
+	static final int MIN_MEMOISED_MOVES = 8;
+
+	final Logger logger = LogManager.getLogger(getClass());
+
+	private final List<Move> movePrefix;
+
+	/**
+	 * Found solutions.
+	 */
+	private final List<Solution> solutions = new LinkedList<>();
+
+	/**
+	 * Receives each found solution when not only counting them.
+	 */
+	private Consumer<Solution> solutionConsumer;
+
+	/**
+	 * Number of found solutions when only counting them.
+	 */
+	SolutionCount solutionCount;
+
+	/**
+	 * Where to store the progress of the count, if anywhere.
+	 */
+	private SearchCheckpoint.Entry checkpointEntry;
+	private int checkpointUpdateInterval;
+	private int nodesUntilCheckpointUpdate;
+
+	/**
+	 * The path to continue a resumed count from. The search follows it,
+	 * skipping the moves before it, until the whole path has been made.
+	 */
+	private List<Move> resumePath = Collections.emptyList();
+	boolean resuming;
+
+	/**
+	 * Counts the progress of the search for monitoring, if it's monitored.
+	 */
+	ProgressRecorder progressRecorder;
+
+	/**
+	 * Remembers the number of solutions below the states of the count, if used.
+	 */
+	TranspositionTable transpositionTable;
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves. The moves are expected to form a valid path on the board.
+	 */
+	AbstractBitboardSolver(final String searchName, final Position startPosition, final SuccessorTable successors,
+						   final List<Move> movePrefix) {
+		this(searchName, startPosition, successors, movePrefix, null);
+	}
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves and keeping the fixed numbers of the given constraints in
+	 * their cells. The subclass checks the constraints of the moves it makes.
+	 *
+	 * @param constraints the numbers fixed to given cells, or null for none
+	 */
+	AbstractBitboardSolver(final String searchName, final Position startPosition, final SuccessorTable successors,
+						   final List<Move> movePrefix, final PuzzleConstraints constraints) {
+		super(searchName, startPosition, successors, constraints);
+		this.movePrefix = movePrefix;
+	}
+
+	/**
+	 * Searches the solutions from the cell the path is in after the move
+	 * prefix, with the cells of the prefix occupied.
+	 *
+	 * @param fixingSymmetries the symmetries mapping the prefix to itself, as
+	 *                         tracked by {@link SymmetryBreaker}
+	 */
+	abstract void searchFrom(int depth, int currentCell, int fixingSymmetries);
+
+	/**
+	 * Counts a visit to a cell of the search, and returns the index of the
+	 * first move to attempt from it: the move of the resumed path at the
+	 * depth if the search is still following the path, otherwise the first one.
+	 */
+	final int visit(final int depth, final Move[] movesToAttempt) {
+		if (progressRecorder != null) {
+			progressRecorder.nodeVisited(depth);
+		}
+
+		if (resuming) {
+			if (depth < resumePath.size()) {
+				return resumeMoveIndex(movesToAttempt, resumePath.get(depth));
+			}
+			resuming = false;
+		} else if (checkpointEntry != null && --nodesUntilCheckpointUpdate == 0) {
+			nodesUntilCheckpointUpdate = checkpointUpdateInterval;
+			checkpointEntry.update(Arrays.asList(moves).subList(0, depth), solutionCount);
+		}
+		return 0;
+	}
+
+	/**
+	 * Tells whether the count of the subtree below a state should be looked
+	 * up from and stored in the transposition table. Only the states whose
+	 * whole subtree is searched, without skipping symmetric paths, have
+	 * counts that apply to any path reaching them.
+	 */
+	final boolean isMemoised(final int depth, final int fixingSymmetries) {
+		return transpositionTable != null && solutionCount != null && !resuming && depth > 0
+				&& fixingSymmetries == 0 && moves.length - depth >= MIN_MEMOISED_MOVES;
+	}
+
+	final void addFoundSolution() {
+		if (progressRecorder != null) {
+			progressRecorder.solutionFound();
+		}
+		if (solutionCount != null) {
+			solutionCount.increment(moves[0]);
+		} else {
+			Solution foundSolution = new Solution(startPosition, Arrays.asList(moves));
+			solutionConsumer.accept(foundSolution);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Solution found:{}", foundSolution);
+			}
+		}
+	}
+
+	final void addCountedSolutions(final long count) {
+		if (progressRecorder != null) {
+			progressRecorder.solutionsFound(count);
+		}
+		solutionCount.add(moves[0], count);
+	}
+
+	static int resumeMoveIndex(final Move[] movesToAttempt, final Move resumeMove) {
+		for (int i = 0; i < movesToAttempt.length; i++) {
+			if (movesToAttempt[i] == resumeMove) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("Cannot resume search with move " + resumeMove);
+	}
+
+	@Override
+	public List<Solution> searchSolutions() {
+		solutionConsumer = solutions::add;
+		search();
+		return solutions;
+	}
+
+	@Override
+	public long searchSolutions(final Consumer<Solution> consumer) {
+		final long[] found = new long[1];
+		solutionConsumer = solution -> {
+			found[0]++;
+			consumer.accept(solution);
+		};
+		search();
+		return found[0];
+	}
+
+	@Override
+	public SolutionCount countSolutions() {
+		solutionCount = new SolutionCount(startPosition);
+		search();
+		return solutionCount;
+	}
+
+	@Override
+	public SolutionCount countSolutions(final SearchCheckpoint.Entry checkpointEntry, final int updateInterval) {
+		this.checkpointEntry = checkpointEntry;
+		checkpointUpdateInterval = updateInterval;
+		nodesUntilCheckpointUpdate = updateInterval;
+		solutionCount = checkpointEntry.getCount();
+		resumePath = checkpointEntry.getPath();
+		resuming = !resumePath.isEmpty();
+		search();
+		return solutionCount;
+	}
+
+	@Override
+	public void setProgress(final SearchProgress progress) {
+		progressRecorder = new ProgressRecorder(progress);
+	}
+
+	@Override
+	public void setTranspositionTable(final TranspositionTable transpositionTable) {
+		this.transpositionTable = transpositionTable;
+	}
+
+	private void search() {
+		if (progressRecorder == null) {
+			searchFromStartPosition();
+			return;
+		}
+
+		progressRecorder.started();
+		try {
+			searchFromStartPosition();
+		} finally {
+			progressRecorder.finished();
+		}
+	}
+
+	private void searchFromStartPosition() {
+		if (movePrefix.isEmpty()) {
+			logger.info("Starting from {}", startPosition);
+		} else {
+			logger.debug("Starting from {} after {}", startPosition, movePrefix);
+		}
+		final int fixingSymmetries = SymmetryBreaker.fixingSymmetriesAfter(stabilizer, movePrefix);
+		if (fixingSymmetries == SymmetryBreaker.NOT_CANONICAL || !pathMeetsConstraints(movePrefix)) {
+			return;
+		}
+
+		solutions.clear();
+		final int currentCell = occupyPath(movePrefix);
+
+		final int depth = movePrefix.size();
+		if (moves.length == 0) {
+			return;
+		}
+		if (depth == moves.length) {
+			addFoundSolution();
+			return;
+		}
+
+		if (depth == 0 || !pruner.isDeadEnd(currentCell)) {
+			searchFrom(depth, currentCell, fixingSymmetries);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.List;
+
+/**
+ * The state shared by the depth-first searches that store the occupied cells
+ * of the board as a bitmask of two longs instead of a {@link Board}: the
+ * occupied cells, the moves made so far and the pruning of the dead ends. The
+ * cells reachable from each cell are precalculated as cell indices and
+ * bitmasks, so the searches themselves don't create any objects until a
+ * solution is found.
+ * <p>
+ * A search with {@link PuzzleConstraints} only uses the symmetries preserved
+ * by the constraints, and the subclasses check the constraints with
+ * {@link #meetsConstraints(int, int)} before entering each number.
+ */
+abstract class BitboardSearch {
+	static final int MAX_CELL_COUNT = 2 * Long.SIZE;
+
+	final Position startPosition;
+	final SuccessorTable successors;
+	final int cellCount;
+
+	/**
+	 * The possible moves from each cell and the indices of the cells the moves
+	 * lead to, in the same order.
+	 */
+	final Move[][] movesByCell;
+	final int[][] targetsByCell;
+
+	/**
+	 * Bitmasks of the cells reachable from each cell, split to the lower and
+	 * higher 64 cells of the board.
+	 */
+	private final long[] neighbourMasksLow;
+	private final long[] neighbourMasksHigh;
+
+	long occupiedLow;
+	long occupiedHigh;
+
+	/**
+	 * Cuts the branches of the search that can no longer cover the whole board.
+	 */
+	final ConnectivityPruner pruner;
+
+	/**
+	 * The symmetries of the board keeping the starting point in place, as
+	 * tracked by {@link SymmetryBreaker}.
+	 */
+	final int stabilizer;
+
+	/**
+	 * The moves that the current depth-first search has made so far.
+	 */
+	final Move[] moves;
+
+	/**
+	 * The numbers fixed to given cells, or null if the search is unconstrained.
+	 */
+	final PuzzleConstraints constraints;
+
+	/**
+	 * The minimum numbers of moves to the cells of the fixed numbers, as
+	 * returned by {@link PuzzleConstraints#minimumMovesToFixedCells(SuccessorTable)},
+	 * or null if the search is unconstrained.
+	 */
+	private final int[][] minimumMovesToFixedCells;
+
+	/**
+	 * @param searchName the name of the search in the error for a too big board
+	 */
+	BitboardSearch(final String searchName, final Position startPosition, final SuccessorTable successors) {
+		this(searchName, startPosition, successors, null);
+	}
+
+	/**
+	 * @param searchName  the name of the search in the error for a too big board
+	 * @param constraints the numbers fixed to given cells, or null for none
+	 */
+	BitboardSearch(final String searchName, final Position startPosition, final SuccessorTable successors,
+				   final PuzzleConstraints constraints) {
+		this.startPosition = startPosition;
+		this.successors = successors;
+		this.cellCount = successors.cellCount;
+		if (cellCount > MAX_CELL_COUNT) {
+			throw new IllegalArgumentException(searchName + " search supports boards of up to " + MAX_CELL_COUNT + " cells");
+		}
+
+		movesByCell = successors.movesByCell;
+		targetsByCell = successors.targetsByCell;
+		neighbourMasksLow = new long[cellCount];
+		neighbourMasksHigh = new long[cellCount];
+		for (int cell = 0; cell < cellCount; cell++) {
+			for (int target : targetsByCell[cell]) {
+				if (target < Long.SIZE) {
+					neighbourMasksLow[cell] |= 1L << target;
+				} else {
+					neighbourMasksHigh[cell] |= 1L << target;
+				}
+			}
+		}
+
+		pruner = ConnectivityPruner.forSuccessors(successors);
+		this.constraints = constraints;
+		if (constraints != null) {
+			stabilizer = SymmetryBreaker.stabilizer(startPosition, successors.boardWidth, successors.boardHeight,
+					constraints.preservedOf(successors.symmetries));
+			minimumMovesToFixedCells = constraints.minimumMovesToFixedCells(successors);
+		} else {
+			stabilizer = SymmetryBreaker.stabilizer(startPosition, successors);
+			minimumMovesToFixedCells = null;
+		}
+		moves = new Move[Math.max(cellCount - 1, 0)];
+	}
+
+	/**
+	 * Tells whether entering the given number in the given cell keeps the
+	 * numbers fixed by the constraints in their cells, and keeps the cell of
+	 * the next fixed number reachable in exactly the right number of moves.
+	 * The number entered after the move at a depth is {@code depth + 2}.
+	 */
+	final boolean meetsConstraints(final int number, final int cell) {
+		return constraints == null || constraints.allowsOnPath(number, cell, minimumMovesToFixedCells);
+	}
+
+	/**
+	 * Tells whether the starting point and the given moves from it meet the
+	 * constraints, if any.
+	 */
+	final boolean pathMeetsConstraints(final List<Move> path) {
+		if (constraints == null) {
+			return true;
+		}
+
+		int currentCell = successors.getCellIndex(startPosition);
+		if (!meetsConstraints(1, currentCell)) {
+			return false;
+		}
+		for (int i = 0; i < path.size(); i++) {
+			currentCell = successors.target(currentCell, path.get(i));
+			if (!meetsConstraints(i + 2, currentCell)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	final boolean isOccupied(final int cell) {
+		return cell < Long.SIZE ? (occupiedLow & (1L << cell)) != 0 : (occupiedHigh & (1L << cell)) != 0;
+	}
+
+	final void toggle(final int cell) {
+		if (cell < Long.SIZE) {
+			occupiedLow ^= 1L << cell;
+		} else {
+			occupiedHigh ^= 1L << cell;
+		}
+	}
+
+	final boolean hasUnoccupiedNeighbour(final int cell) {
+		return (neighbourMasksLow[cell] & ~occupiedLow) != 0 || (neighbourMasksHigh[cell] & ~occupiedHigh) != 0;
+	}
+
+	final int unoccupiedNeighbours(final int cell) {
+		return Long.bitCount(neighbourMasksLow[cell] & ~occupiedLow) + Long.bitCount(neighbourMasksHigh[cell] & ~occupiedHigh);
+	}
+
+	/**
+	 * Clears the board and makes the given moves from the starting point.
+	 *
+	 * @return the cell the moves lead to
+	 */
+	final int occupyPath(final List<Move> path) {
+		int currentCell = successors.getCellIndex(startPosition);
+		occupiedLow = 0;
+		occupiedHigh = 0;
+		pruner.clear();
+		toggle(currentCell);
+		pruner.occupy(currentCell);
+
+		for (int i = 0; i < path.size(); i++) {
+			moves[i] = path.get(i);
+			currentCell = successors.target(currentCell, moves[i]);
+			toggle(currentCell);
+			pruner.occupy(currentCell);
+		}
+		return currentCell;
+	}
+}
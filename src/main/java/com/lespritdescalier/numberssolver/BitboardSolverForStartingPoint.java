@@ -0,0 +1,84 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A depth-first search that stores the occupied cells of the board as a
+ * bitmask of two longs instead of a {@link Board}. The cells reachable from
+ * each cell are precalculated as cell indices and bitmasks, so the search
+ * itself doesn't create any objects until a solution is found.
+ * <p>
+ * Finds the same solutions in the same order as {@link SolverForStartingPoint}.
+ */
+public class BitboardSolverForStartingPoint extends AbstractBitboardSolver {
+	/**
+	 * Creates a solver for the board and moves of the given successor table.
+	 */
+	BitboardSolverForStartingPoint(final Position startPosition, final SuccessorTable successors) {
+		this(startPosition, successors, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves. The moves are expected to form a valid path on the board.
+	 */
+	BitboardSolverForStartingPoint(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+		super("Bitboard", startPosition, successors, movePrefix);
+	}
+
+	@Override
+	void searchFrom(final int depth, final int currentCell, final int fixingSymmetries) {
+		findNextMove(depth, currentCell, movesByCell[currentCell], targetsByCell[currentCell], fixingSymmetries);
+	}
+
+	/**
+	 * @param fixingSymmetries the symmetries mapping the path made so far to
+	 *                         itself, as tracked by {@link SymmetryBreaker}
+	 */
+	private void findNextMove(final int depth, final int currentCell, final Move[] movesToAttempt, final int[] targets,
+							  final int fixingSymmetries) {
+		if (!hasUnoccupiedNeighbour(currentCell)) {
+			return;
+		}
+		final int firstMoveIndex = visit(depth, movesToAttempt);
+
+		final boolean memoised = isMemoised(depth, fixingSymmetries);
+		long countBefore = 0;
+		if (memoised) {
+			final long storedCount = transpositionTable.get(occupiedLow, occupiedHigh, currentCell);
+			if (storedCount != TranspositionTable.NOT_FOUND) {
+				addCountedSolutions(storedCount);
+				return;
+			}
+			countBefore = solutionCount.get(moves[0]);
+		}
+
+		for (int i = firstMoveIndex; i < targets.length; i++) {
+			final int target = targets[i];
+			final Move move = movesToAttempt[i];
+			if (isOccupied(target) || !SymmetryBreaker.isCanonical(fixingSymmetries, move)) {
+				continue;
+			}
+
+			moves[depth] = move;
+			toggle(target);
+			pruner.occupy(target);
+
+			if (depth + 1 == moves.length) {
+				addFoundSolution();
+			} else if (!pruner.isDeadEnd(target)) {
+				findNextMove(depth + 1, target, movesByCell[target], targetsByCell[target],
+						SymmetryBreaker.fixingSymmetriesAfter(fixingSymmetries, move));
+			}
+
+			pruner.release(target);
+			toggle(target);
+		}
+
+		if (memoised) {
+			transpositionTable.put(occupiedLow, occupiedHigh, currentCell, moves.length - depth,
+					solutionCount.get(moves[0]) - countBefore);
+		}
+	}
+}
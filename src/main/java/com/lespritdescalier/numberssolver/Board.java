@@ -2,24 +2,37 @@ package com.lespritdescalier.numberssolver;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.Arrays;
+
 public class Board {
 	private static final byte UNOCCUPIED = -1;
-	private final int[][] numbers;
+	/**
+	 * The number in each cell, indexed by row * width + col.
+	 */
+	private final int[] numbers;
 	private int numberCount;
 	public final int width;
 	public final int height;
 
 	/**
-	 * The board is always rectangular and thus only takes one size argument
-	 * when created. It still has separate properties for width and height
-	 * to make going through its cells easier to follow.
+	 * Creates a square board.
 	 *
 	 * @param size the length of each side of the board
 	 */
 	public Board(final int size) {
-		width = size;
-		height = size;
-		numbers = new int[height][width];
+		this(size, size);
+	}
+
+	/**
+	 * Creates a rectangular board.
+	 *
+	 * @param width  the number of columns on the board
+	 * @param height the number of rows on the board
+	 */
+	public Board(final int width, final int height) {
+		this.width = width;
+		this.height = height;
+		numbers = new int[width * height];
 		numberCount = 0;
 		clear();
 	}
@@ -36,22 +49,50 @@ public class Board {
 		return pos.row < 0 || pos.row >= height;
 	}
 
+	private int getCellIndex(final Position pos) {
+		return pos.row * width + pos.col;
+	}
+
 	public void addNumber(final Position pos, final int number) {
+		addNumber(getCellIndex(pos), number);
+	}
+
+	/**
+	 * Adds a number to the cell with the given index (row * width + col), for
+	 * a search that tracks its position without creating {@link Position}
+	 * objects.
+	 */
+	public void addNumber(final int cell, final int number) {
 		// Note: for efficiency reasons, there's no check for adding a number to
 		// an already occupied position
-		numbers[pos.row][pos.col] = number;
+		numbers[cell] = number;
 		numberCount++;
 	}
 
 	public void removeNumber(final Position pos) {
+		removeNumber(getCellIndex(pos));
+	}
+
+	public void removeNumber(final int cell) {
 		// Note: for efficiency reasons, there's no check for removing a number
 		// from an unoccupied position
-		numbers[pos.row][pos.col] = UNOCCUPIED;
+		numbers[cell] = UNOCCUPIED;
 		numberCount--;
 	}
 
 	public boolean isPositionOccupied(final Position pos) {
-		return numbers[pos.row][pos.col] != UNOCCUPIED;
+		return isCellOccupied(getCellIndex(pos));
+	}
+
+	public boolean isCellOccupied(final int cell) {
+		return numbers[cell] != UNOCCUPIED;
+	}
+
+	/**
+	 * Returns the number in the given cell. Only meaningful for an occupied cell.
+	 */
+	public int getNumber(final Position pos) {
+		return numbers[getCellIndex(pos)];
 	}
 
 	public boolean isFull() {
@@ -59,11 +100,7 @@ public class Board {
 	}
 
 	public void clear() {
-		for (int row = 0; row < height; row++) {
-			for (int col = 0; col < width; col++) {
-				numbers[row][col] = UNOCCUPIED;
-			}
-		}
+		Arrays.fill(numbers, UNOCCUPIED);
 
 		numberCount = 0;
 	}
@@ -95,7 +132,7 @@ public class Board {
 	private String numberPosition(final int col, final int row) {
 		StringBuilder sb = new StringBuilder();
 
-		int number = numbers[row][col];
+		int number = numbers[row * width + col];
 		if (number == UNOCCUPIED) {
 			sb.append("   ");
 		} else {
@@ -0,0 +1,106 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How the solutions of a board are deduced from the solutions found by
+ * searching only some of the starting cells, using the symmetries of the board.
+ * <p>
+ * The search is started from one cell of each set of cells that the
+ * symmetries of the board map to each other. On a square board, these are the
+ * cells between the diagonal axis and the middle column in the first quadrant
+ * of the board. A rectangular board can't be mirrored diagonally or rotated by
+ * 90 degrees, so the search is started from all the cells of its first quadrant.
+ * When only some of the symmetries of the board map the solutions to each
+ * other, the search is started from the first cell of each such set instead.
+ * <p>
+ * From each starting cell, the search only finds the canonical solutions as
+ * described in {@link SymmetryBreaker}, so that no two solutions found are
+ * symmetric to each other. All the solutions of the board are then deduced by
+ * applying each symmetry of the board to each solution found, and none of the
+ * deduced solutions are duplicates of each other.
+ */
+class BoardSymmetry {
+	final int boardWidth;
+	final int boardHeight;
+
+	/**
+	 * The symmetries of the board, starting with the identity.
+	 */
+	final List<Symmetry> symmetries;
+
+	BoardSymmetry(final int boardWidth, final int boardHeight) {
+		this(boardWidth, boardHeight, Symmetry.of(boardWidth, boardHeight));
+	}
+
+	/**
+	 * Creates the symmetry of a board whose solutions are only deduced by some
+	 * of the symmetries of the board, e.g. the ones preserved by the
+	 * {@link MoveRules} or the {@link PuzzleConstraints} of the search.
+	 *
+	 * @param symmetries the symmetries to deduce the solutions by, starting
+	 *                   with the identity
+	 */
+	BoardSymmetry(final int boardWidth, final int boardHeight, final List<Symmetry> symmetries) {
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.symmetries = symmetries;
+	}
+
+	boolean isSquare() {
+		return boardWidth == boardHeight;
+	}
+
+	/**
+	 * Returns the cells the search needs to be started from to find all the
+	 * solutions that can't be deduced from each other.
+	 */
+	List<Position> getUniqueStartingPoints() {
+		if (!symmetries.equals(Symmetry.of(boardWidth, boardHeight))) {
+			return getFirstCellsOfOrbits();
+		}
+
+		final List<Position> startingPoints = new ArrayList<>();
+
+		int maxCol = (boardWidth - 1) / 2;
+		int maxRow = (boardHeight - 1) / 2;
+
+		for (int row = 0; row <= maxRow; row++) {
+			for (int col = isSquare() ? row : 0; col <= maxCol; col++) {
+				startingPoints.add(new Position(col, row));
+			}
+		}
+
+		return startingPoints;
+	}
+
+	/**
+	 * Returns the first cell, in the order of the cell indices, of each set
+	 * of cells that the symmetries map to each other.
+	 */
+	private List<Position> getFirstCellsOfOrbits() {
+		final List<Position> startingPoints = new ArrayList<>();
+		for (int row = 0; row < boardHeight; row++) {
+			for (int col = 0; col < boardWidth; col++) {
+				final Position position = new Position(col, row);
+				boolean first = true;
+				for (Symmetry symmetry : symmetries) {
+					final Position image = symmetry.apply(position, boardWidth, boardHeight);
+					first &= image.row > row || (image.row == row && image.col >= col);
+				}
+				if (first) {
+					startingPoints.add(position);
+				}
+			}
+		}
+		return startingPoints;
+	}
+
+	/**
+	 * Returns the number of solutions deduced from each solution found by the search.
+	 */
+	int deducedSolutionCount() {
+		return symmetries.size();
+	}
+}
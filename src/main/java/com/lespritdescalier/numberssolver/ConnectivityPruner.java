@@ -0,0 +1,172 @@
+package com.lespritdescalier.numberssolver;
+
+/**
+ * Keeps track of how many unoccupied neighbours each cell of the board has,
+ * so that a search can tell early when the remaining cells can no longer be
+ * covered by a single path.
+ * <p>
+ * The neighbours of a cell are the cells reachable from it by a single move.
+ * When every move has an opposite move, a cell's neighbours are also the cells
+ * it can be reached from.
+ * <p>
+ * A branch of the search is a dead end when
+ * <ul>
+ *     <li>an unoccupied cell can't be reached from any unoccupied cell or the current cell, or</li>
+ *     <li>more than one unoccupied cell has only one remaining neighbour, as each of
+ *     those would have to be the last cell of the path.</li>
+ * </ul>
+ * Both conditions only rule out branches that couldn't lead to a solution,
+ * so the search still finds every solution.
+ * <p>
+ * With move rules that can't always be undone, the neighbours of a cell are
+ * the cells reachable from it, and the number of unoccupied neighbours kept
+ * for each cell is the number of unoccupied cells it can be reached from.
+ * Having one of them doesn't make a cell the last cell of the path, so a
+ * branch is then only a dead end when an unoccupied cell can't be reached,
+ * or more than one unoccupied cell can only be reached from the current cell.
+ */
+class ConnectivityPruner {
+	private final int[][] neighbours;
+	private final boolean directed;
+
+	/**
+	 * The number of unoccupied neighbours of each cell, kept up to date for
+	 * occupied cells also.
+	 */
+	private final int[] degrees;
+	private final boolean[] occupied;
+
+	private int unoccupiedCount;
+
+	/**
+	 * The number of unoccupied cells with no unoccupied neighbours.
+	 */
+	private int isolatedCount;
+
+	/**
+	 * The number of unoccupied cells with exactly one unoccupied neighbour.
+	 */
+	private int endpointCount;
+
+	ConnectivityPruner(final int[][] neighbours) {
+		this(neighbours, false);
+	}
+
+	/**
+	 * @param neighbours the cells reachable from each cell
+	 * @param directed   whether a cell can be reachable from another cell
+	 *                   without the other cell being reachable from it
+	 */
+	ConnectivityPruner(final int[][] neighbours, final boolean directed) {
+		this.neighbours = neighbours;
+		this.directed = directed;
+		degrees = new int[neighbours.length];
+		occupied = new boolean[neighbours.length];
+		clear();
+	}
+
+	/**
+	 * Creates a pruner for a board using the compiled moves of each cell.
+	 *
+	 * @param successors the moves of the board
+	 * @return a pruner with all cells unoccupied
+	 */
+	static ConnectivityPruner forSuccessors(final SuccessorTable successors) {
+		return new ConnectivityPruner(successors.targetsByCell, !successors.reversible);
+	}
+
+	void clear() {
+		for (int cell = 0; cell < neighbours.length; cell++) {
+			occupied[cell] = false;
+			degrees[cell] = 0;
+		}
+		for (int cell = 0; cell < neighbours.length; cell++) {
+			for (int neighbour : neighbours[cell]) {
+				degrees[neighbour]++;
+			}
+		}
+
+		unoccupiedCount = neighbours.length;
+		isolatedCount = 0;
+		endpointCount = 0;
+		for (int cell = 0; cell < neighbours.length; cell++) {
+			countDegree(cell, 1);
+		}
+	}
+
+	private void countDegree(final int cell, final int change) {
+		if (degrees[cell] == 0) {
+			isolatedCount += change;
+		} else if (degrees[cell] == 1) {
+			endpointCount += change;
+		}
+	}
+
+	private void changeDegree(final int cell, final int change) {
+		if (occupied[cell]) {
+			degrees[cell] += change;
+		} else {
+			countDegree(cell, -1);
+			degrees[cell] += change;
+			countDegree(cell, 1);
+		}
+	}
+
+	void occupy(final int cell) {
+		// Note: for efficiency reasons, there's no check for occupying an
+		// already occupied cell
+		countDegree(cell, -1);
+		occupied[cell] = true;
+		unoccupiedCount--;
+
+		for (int neighbour : neighbours[cell]) {
+			changeDegree(neighbour, -1);
+		}
+	}
+
+	void release(final int cell) {
+		for (int neighbour : neighbours[cell]) {
+			changeDegree(neighbour, 1);
+		}
+
+		occupied[cell] = false;
+		unoccupiedCount++;
+		countDegree(cell, 1);
+	}
+
+	/**
+	 * Tells whether the unoccupied cells can no longer be covered by a path
+	 * continuing from the current cell.
+	 *
+	 * @param currentCell the occupied cell the path continues from
+	 * @return true if no solution can be found by continuing the search
+	 */
+	boolean isDeadEnd(final int currentCell) {
+		if (unoccupiedCount == 0) {
+			return false;
+		}
+
+		// The current cell counts as a neighbour for the unoccupied cells next to it
+		int isolated = isolatedCount;
+		int endpoints = endpointCount;
+		boolean hasUnoccupiedNeighbour = false;
+		for (int neighbour : neighbours[currentCell]) {
+			if (!occupied[neighbour]) {
+				hasUnoccupiedNeighbour = true;
+				if (degrees[neighbour] == 0) {
+					isolated--;
+					endpoints++;
+				} else if (degrees[neighbour] == 1) {
+					endpoints--;
+				}
+			}
+		}
+
+		if (directed) {
+			// The cells only reachable from the current cell would all have
+			// to be the next cell of the path
+			return !hasUnoccupiedNeighbour || isolated > 0 || isolatedCount - isolated > 1;
+		}
+		return !hasUnoccupiedNeighbour || isolated > 0 || endpoints > 1;
+	}
+}
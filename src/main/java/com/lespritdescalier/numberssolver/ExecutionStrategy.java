@@ -0,0 +1,93 @@
+package com.lespritdescalier.numberssolver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The available ways of running the tasks of a search. With
+ * {@link #WORK_STEALING}, each task forks the subtasks of its next moves
+ * until the split depth as described in {@link SubtreeSearchTask}. With the
+ * other strategies, the search from each starting point is split up front,
+ * and each subtree at the split depth is submitted to the executor as a task
+ * of its own. The results are merged in the same order either way.
+ */
+public enum ExecutionStrategy {
+	/**
+	 * A fork/join pool with a worker per core, stealing the forked subtasks
+	 * of each other.
+	 */
+	WORK_STEALING {
+		@Override
+		ExecutorService createExecutor(final int parallelism) {
+			return new ForkJoinPool(parallelism);
+		}
+	},
+
+	/**
+	 * A fixed pool of platform threads, one per core unless set otherwise,
+	 * taking the subtrees from a shared queue.
+	 */
+	PLATFORM_POOL {
+		@Override
+		ExecutorService createExecutor(final int parallelism) {
+			return Executors.newFixedThreadPool(parallelism);
+		}
+	},
+
+	/**
+	 * A virtual thread for each subtree. The virtual threads are run by a
+	 * carrier thread per core, and a virtual thread blocked on e.g. a
+	 * {@link SolutionSink} doesn't keep a carrier thread from searching
+	 * another subtree. Only available when running on Java 21 or later.
+	 */
+	VIRTUAL_THREADS {
+		@Override
+		ExecutorService createExecutor(final int parallelism) {
+			// Looked up at runtime, as the project is still built for Java 17
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (NoSuchMethodException e) {
+				throw new UnsupportedOperationException("Virtual threads are not available on Java " + Runtime.version());
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					// e.g. virtual threads being a preview feature on Java 19 and 20
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public boolean isSupported() {
+			return Runtime.version().feature() >= 21;
+		}
+	};
+
+	/**
+	 * Creates an executor running the tasks with the given number of threads
+	 * at a time, or with a thread per task for {@link #VIRTUAL_THREADS}.
+	 *
+	 * @throws UnsupportedOperationException if the strategy is not supported
+	 *                                       by the running JVM
+	 */
+	abstract ExecutorService createExecutor(int parallelism);
+
+	/**
+	 * Tells whether the strategy can be used on the running JVM.
+	 */
+	public boolean isSupported() {
+		return true;
+	}
+
+	/**
+	 * Tells whether the tasks are run in a fork/join pool, forking their own
+	 * subtasks, instead of being split before running them.
+	 */
+	boolean forksSubtasks() {
+		return this == WORK_STEALING;
+	}
+}
@@ -0,0 +1,68 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the first solutions found by a search that stops as soon as it
+ * has found enough of them. The searches of all the starting points add their
+ * solutions here, and {@link #whenDone()} completes once the limit is
+ * reached, for the search to be stopped.
+ * <p>
+ * Each solution found stands for all the solutions deduced from it by the
+ * symmetries of the board, so these are added too, up to the limit.
+ */
+class FirstSolutions {
+	private final int limit;
+	private final BoardSymmetry boardSymmetry;
+	private final List<Solution> solutions = new ArrayList<>();
+	private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+	/**
+	 * @param limit         the number of solutions to collect
+	 * @param boardSymmetry the symmetries of the board the solutions are searched on
+	 */
+	FirstSolutions(final int limit, final BoardSymmetry boardSymmetry) {
+		this.limit = limit;
+		this.boardSymmetry = boardSymmetry;
+		if (limit <= 0) {
+			done.complete(null);
+		}
+	}
+
+	/**
+	 * Adds a solution found by the search and the solutions deduced from it,
+	 * unless the limit has already been reached.
+	 */
+	synchronized void add(final Solution unique) {
+		for (Symmetry symmetry : boardSymmetry.symmetries) {
+			if (solutions.size() >= limit) {
+				break;
+			}
+			solutions.add(symmetry.apply(unique, boardSymmetry.boardWidth, boardSymmetry.boardHeight));
+		}
+		if (solutions.size() >= limit) {
+			done.complete(null);
+		}
+	}
+
+	/**
+	 * Tells whether enough solutions have been found, i.e. whether the
+	 * search should stop.
+	 */
+	boolean isDone() {
+		return done.isDone();
+	}
+
+	/**
+	 * Returns a future completed as soon as enough solutions have been found.
+	 */
+	CompletableFuture<Void> whenDone() {
+		return done;
+	}
+
+	synchronized List<Solution> getSolutions() {
+		return new ArrayList<>(solutions);
+	}
+}
@@ -0,0 +1,151 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The depth-first search of {@link BitboardSolverForStartingPoint} as a loop
+ * over an explicit stack instead of recursion. The stack keeps, for each
+ * depth of the current path, the cell the path is in, the index of the next
+ * move to attempt from it and the symmetries fixing the path up to it, all in
+ * preallocated primitive arrays.
+ * <p>
+ * As the whole state of the search is in the fields of the solver rather than
+ * in the call stack, the search doesn't need a stack frame per move, and the
+ * state can be inspected (and later paused or handed over) between any two
+ * steps of the loop.
+ * <p>
+ * Finds the same solutions in the same order as {@link SolverForStartingPoint}.
+ */
+public class IterativeSolverForStartingPoint extends AbstractBitboardSolver {
+	/**
+	 * Marks a depth of the stack whose count is not stored in the
+	 * transposition table.
+	 */
+	private static final long NOT_MEMOISED = -1;
+
+	/**
+	 * The stack of the search, indexed by the number of moves made: the cell
+	 * the path is in, the index of the next move to attempt from the cell, the
+	 * symmetries mapping the path to itself and the count of solutions before
+	 * entering the cell, if the count of the cell is memoised.
+	 */
+	private final int[] cells;
+	private final int[] nextMoveIndices;
+	private final int[] fixingSymmetries;
+	private final long[] countsBefore;
+
+	/**
+	 * Creates a solver for the board and moves of the given successor table.
+	 */
+	IterativeSolverForStartingPoint(final Position startPosition, final SuccessorTable successors) {
+		this(startPosition, successors, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves. The moves are expected to form a valid path on the board.
+	 */
+	IterativeSolverForStartingPoint(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+		super("Iterative", startPosition, successors, movePrefix);
+		cells = new int[cellCount];
+		nextMoveIndices = new int[cellCount];
+		fixingSymmetries = new int[cellCount];
+		countsBefore = new long[cellCount];
+	}
+
+	/**
+	 * Pushes a cell the path has moved to onto the stack, unless the search
+	 * doesn't need to continue from it.
+	 *
+	 * @return true if the moves from the cell should be attempted
+	 */
+	private boolean enter(final int depth, final int cell, final int fixing) {
+		if (!hasUnoccupiedNeighbour(cell)) {
+			return false;
+		}
+		final int firstMoveIndex = visit(depth, movesByCell[cell]);
+
+		countsBefore[depth] = NOT_MEMOISED;
+		if (isMemoised(depth, fixing)) {
+			final long storedCount = transpositionTable.get(occupiedLow, occupiedHigh, cell);
+			if (storedCount != TranspositionTable.NOT_FOUND) {
+				addCountedSolutions(storedCount);
+				return false;
+			}
+			countsBefore[depth] = solutionCount.get(moves[0]);
+		}
+
+		cells[depth] = cell;
+		nextMoveIndices[depth] = firstMoveIndex;
+		fixingSymmetries[depth] = fixing;
+		return true;
+	}
+
+	/**
+	 * Pops a cell whose moves have all been attempted off the stack.
+	 */
+	private void leave(final int depth) {
+		if (countsBefore[depth] != NOT_MEMOISED) {
+			transpositionTable.put(occupiedLow, occupiedHigh, cells[depth], moves.length - depth,
+					solutionCount.get(moves[0]) - countsBefore[depth]);
+		}
+	}
+
+	/**
+	 * Runs the search from the cell the path is in at the given depth until
+	 * all the moves from it have been attempted.
+	 */
+	@Override
+	void searchFrom(final int rootDepth, final int rootCell, final int rootFixing) {
+		if (!enter(rootDepth, rootCell, rootFixing)) {
+			return;
+		}
+
+		int depth = rootDepth;
+		while (true) {
+			final Move[] movesToAttempt = movesByCell[cells[depth]];
+			final int[] targets = targetsByCell[cells[depth]];
+			final int fixing = fixingSymmetries[depth];
+
+			boolean descended = false;
+			for (int i = nextMoveIndices[depth]; i < targets.length; i++) {
+				final int target = targets[i];
+				final Move move = movesToAttempt[i];
+				if (isOccupied(target) || !SymmetryBreaker.isCanonical(fixing, move)) {
+					continue;
+				}
+
+				moves[depth] = move;
+				toggle(target);
+				pruner.occupy(target);
+
+				if (depth + 1 == moves.length) {
+					addFoundSolution();
+				} else if (!pruner.isDeadEnd(target)
+						&& enter(depth + 1, target, SymmetryBreaker.fixingSymmetriesAfter(fixing, move))) {
+					nextMoveIndices[depth] = i + 1;
+					descended = true;
+					break;
+				}
+
+				pruner.release(target);
+				toggle(target);
+			}
+			if (descended) {
+				depth++;
+				continue;
+			}
+
+			leave(depth);
+			if (depth == rootDepth) {
+				return;
+			}
+
+			// Undo the move that led to the finished cell
+			depth--;
+			pruner.release(cells[depth + 1]);
+			toggle(cells[depth + 1]);
+		}
+	}
+}
@@ -0,0 +1,416 @@
+package com.lespritdescalier.numberssolver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An experimental solver that only counts the solutions, by joining the two
+ * halves of each solution instead of searching every solution to its end.
+ * <p>
+ * The second halves of the solutions are enumerated once for the whole board,
+ * by {@link #enumerateSecondHalves(SuccessorTable)} before the search, and
+ * shared by the solvers of all the starting points. They are enumerated
+ * backwards from every cell a solution can end in, and counted by the set of
+ * cells they cover and the cell they reach, which is the middle cell of the
+ * solution. The solutions from a starting point are then counted by searching
+ * only their first halves and looking up how many second halves continue from
+ * the middle cell over exactly the rest of the board.
+ * <p>
+ * A first half that is still mapped to itself by a symmetry of the board can't
+ * be joined with every second half without counting symmetric solutions
+ * twice, so the search continues from it to the end like the other solvers.
+ * <p>
+ * Counts the same solutions as {@link BitboardSolverForStartingPoint}, but
+ * can't return the solutions themselves. Supports boards of up to 64 cells.
+ */
+public class MeetInTheMiddleSolver implements StartingPointSolver {
+	static final int MAX_CELL_COUNT = Long.SIZE;
+
+	private static final Logger logger = LogManager.getLogger(MeetInTheMiddleSolver.class);
+
+	private final Position startPosition;
+	private final List<Move> movePrefix;
+	private final SuccessorTable successors;
+	private final int cellCount;
+
+	/**
+	 * The possible moves from each cell and the indices of the cells the moves
+	 * lead to, in the same order.
+	 */
+	private final Move[][] movesByCell;
+	private final int[][] targetsByCell;
+
+	/**
+	 * The number of cells in the first half of a solution, including the
+	 * starting cell and the middle cell. Despite the name, the halves aren't
+	 * of equal length.
+	 */
+	private final int firstHalfLength;
+	private final SecondHalves secondHalves;
+
+	private long occupied;
+
+	/**
+	 * Cuts the branches of the search that can no longer cover the whole board.
+	 */
+	private final ConnectivityPruner pruner;
+
+	/**
+	 * The symmetries of the board keeping the starting point in place, as
+	 * tracked by {@link SymmetryBreaker}.
+	 */
+	private final int stabilizer;
+
+	/**
+	 * The moves that the current depth-first search has made so far.
+	 */
+	private final Move[] moves;
+
+	private SolutionCount solutionCount;
+
+	/**
+	 * Where to store the progress of the count, if anywhere.
+	 */
+	private SearchCheckpoint.Entry checkpointEntry;
+	private int checkpointUpdateInterval;
+	private int nodesUntilCheckpointUpdate;
+
+	/**
+	 * The path to continue a resumed count from. The search follows it,
+	 * skipping the moves before it, until the whole path has been made.
+	 */
+	private List<Move> resumePath = Collections.emptyList();
+	private boolean resuming;
+
+	/**
+	 * Counts the progress of the search for monitoring, if it's monitored.
+	 */
+	private ProgressRecorder progressRecorder;
+
+	/**
+	 * Creates a solver for the board and moves of the given successor table.
+	 */
+	MeetInTheMiddleSolver(final Position startPosition, final SuccessorTable successors) {
+		this(startPosition, successors, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a solver that counts only the solutions starting with the
+	 * given moves, enumerating the second halves of the solutions for itself.
+	 * The moves are expected to form a valid path on the board.
+	 */
+	MeetInTheMiddleSolver(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+		this(startPosition, successors, movePrefix, enumerateSecondHalves(successors));
+	}
+
+	/**
+	 * Creates a solver that counts only the solutions starting with the
+	 * given moves, joining their first halves with the given second halves.
+	 *
+	 * @param secondHalves the second halves enumerated for the board of the
+	 *                     successor table by {@link #enumerateSecondHalves(SuccessorTable)}
+	 */
+	MeetInTheMiddleSolver(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix,
+						  final SecondHalves secondHalves) {
+		this.startPosition = startPosition;
+		this.movePrefix = movePrefix;
+		this.successors = successors;
+		this.cellCount = successors.cellCount;
+		checkCellCount(cellCount);
+
+		movesByCell = successors.movesByCell;
+		targetsByCell = successors.targetsByCell;
+		firstHalfLength = firstHalfLength(cellCount);
+		this.secondHalves = secondHalves;
+		pruner = ConnectivityPruner.forSuccessors(successors);
+		stabilizer = SymmetryBreaker.stabilizer(startPosition, successors);
+		moves = new Move[Math.max(cellCount - 1, 0)];
+	}
+
+	private static void checkCellCount(final int cellCount) {
+		if (cellCount > MAX_CELL_COUNT) {
+			throw new IllegalArgumentException("Meet-in-the-middle search supports boards of up to " + MAX_CELL_COUNT + " cells");
+		}
+	}
+
+	/**
+	 * The first halves are only searched from the unique starting points
+	 * while the second halves are enumerated from every cell, so making the
+	 * first halves longer balances the work better.
+	 */
+	private static int firstHalfLength(final int cellCount) {
+		return (cellCount * 3 + 3) / 4;
+	}
+
+	/**
+	 * Enumerates the second halves of the solutions of the board of the given
+	 * successor table, to be shared by the solvers of a search.
+	 */
+	static SecondHalves enumerateSecondHalves(final SuccessorTable successors) {
+		checkCellCount(successors.cellCount);
+		return new SecondHalves(successors.sourcesByCell, !successors.reversible,
+				successors.cellCount - firstHalfLength(successors.cellCount) + 1);
+	}
+
+	/**
+	 * @param fixingSymmetries the symmetries mapping the path made so far to
+	 *                         itself, as tracked by {@link SymmetryBreaker}
+	 */
+	private void findNextMove(final int depth, final int currentCell, final Move[] movesToAttempt, final int[] targets,
+							  final int fixingSymmetries) {
+		if (progressRecorder != null) {
+			progressRecorder.nodeVisited(depth);
+		}
+
+		int firstMoveIndex = 0;
+		if (resuming) {
+			if (depth < resumePath.size()) {
+				firstMoveIndex = AbstractBitboardSolver.resumeMoveIndex(movesToAttempt, resumePath.get(depth));
+			} else {
+				resuming = false;
+			}
+		} else if (checkpointEntry != null && --nodesUntilCheckpointUpdate == 0) {
+			nodesUntilCheckpointUpdate = checkpointUpdateInterval;
+			checkpointEntry.update(Arrays.asList(moves).subList(0, depth), solutionCount);
+		}
+
+		for (int i = firstMoveIndex; i < targets.length; i++) {
+			final int target = targets[i];
+			final Move move = movesToAttempt[i];
+			if ((occupied & (1L << target)) != 0 || !SymmetryBreaker.isCanonical(fixingSymmetries, move)) {
+				continue;
+			}
+
+			moves[depth] = move;
+			occupied |= 1L << target;
+			pruner.occupy(target);
+
+			if (depth + 1 == moves.length) {
+				addFoundSolutions(1);
+			} else if (!pruner.isDeadEnd(target)) {
+				final int nextFixingSymmetries = SymmetryBreaker.fixingSymmetriesAfter(fixingSymmetries, move);
+				// A resumed count follows its path past the middle, as some of
+				// the solutions through the middle cell have already been counted
+				if (depth + 2 == firstHalfLength && nextFixingSymmetries == 0 && !resuming) {
+					addFoundSolutions(secondHalves.count(target, occupied));
+				} else {
+					findNextMove(depth + 1, target, movesByCell[target], targetsByCell[target], nextFixingSymmetries);
+				}
+			}
+
+			pruner.release(target);
+			occupied &= ~(1L << target);
+		}
+	}
+
+	private void addFoundSolutions(final long count) {
+		if (count == 0) {
+			return;
+		}
+		if (progressRecorder != null) {
+			progressRecorder.solutionsFound(count);
+		}
+		solutionCount.add(moves[0], count);
+	}
+
+	/**
+	 * Not supported, as the solutions are only counted.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public List<Solution> searchSolutions() {
+		throw new UnsupportedOperationException("Meet-in-the-middle search only counts solutions");
+	}
+
+	/**
+	 * Not supported, as the solutions are only counted.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public long searchSolutions(final Consumer<Solution> consumer) {
+		throw new UnsupportedOperationException("Meet-in-the-middle search only counts solutions");
+	}
+
+	@Override
+	public SolutionCount countSolutions() {
+		solutionCount = new SolutionCount(startPosition);
+		search();
+		return solutionCount;
+	}
+
+	@Override
+	public SolutionCount countSolutions(final SearchCheckpoint.Entry checkpointEntry, final int updateInterval) {
+		this.checkpointEntry = checkpointEntry;
+		checkpointUpdateInterval = updateInterval;
+		nodesUntilCheckpointUpdate = updateInterval;
+		solutionCount = checkpointEntry.getCount();
+		resumePath = checkpointEntry.getPath();
+		resuming = !resumePath.isEmpty();
+		search();
+		return solutionCount;
+	}
+
+	@Override
+	public void setProgress(final SearchProgress progress) {
+		progressRecorder = new ProgressRecorder(progress);
+	}
+
+	private void search() {
+		if (progressRecorder == null) {
+			searchFromStartPosition();
+			return;
+		}
+
+		progressRecorder.started();
+		try {
+			searchFromStartPosition();
+		} finally {
+			progressRecorder.finished();
+		}
+	}
+
+	private void searchFromStartPosition() {
+		if (movePrefix.isEmpty()) {
+			logger.info("Starting from {}", startPosition);
+		} else {
+			logger.debug("Starting from {} after {}", startPosition, movePrefix);
+		}
+		final int fixingSymmetries = SymmetryBreaker.fixingSymmetriesAfter(stabilizer, movePrefix);
+		if (fixingSymmetries == SymmetryBreaker.NOT_CANONICAL) {
+			return;
+		}
+
+		int currentCell = successors.getCellIndex(startPosition);
+		occupied = 1L << currentCell;
+		pruner.clear();
+		pruner.occupy(currentCell);
+
+		final int depth = movePrefix.size();
+		for (int i = 0; i < depth; i++) {
+			moves[i] = movePrefix.get(i);
+			currentCell = successors.target(currentCell, moves[i]);
+			occupied |= 1L << currentCell;
+			pruner.occupy(currentCell);
+		}
+
+		if (moves.length == 0) {
+			return;
+		}
+		if (depth == moves.length) {
+			addFoundSolutions(1);
+			return;
+		}
+		if (depth > 0 && pruner.isDeadEnd(currentCell)) {
+			return;
+		}
+
+		if (depth + 1 == firstHalfLength && fixingSymmetries == 0 && !resuming) {
+			addFoundSolutions(secondHalves.count(currentCell, occupied));
+		} else {
+			findNextMove(depth, currentCell, movesByCell[currentCell], targetsByCell[currentCell], fixingSymmetries);
+		}
+	}
+
+	/**
+	 * The number of paths of a fixed length on a board that can end a
+	 * solution, by the cell the path starts from and the cells it covers.
+	 */
+	static class SecondHalves {
+		/**
+		 * The cells each cell can be reached from, as the paths are
+		 * enumerated backwards.
+		 */
+		private final int[][] neighbours;
+		private final int length;
+		private final long allCells;
+
+		/**
+		 * For each cell, the number of paths starting from it by the bitmask
+		 * of the cells they cover.
+		 */
+		private final List<Map<Long, Long>> countsByCells;
+
+		private final ConnectivityPruner pruner;
+		private long occupied;
+
+		/**
+		 * Enumerates the paths of the given length backwards from every cell
+		 * of the board.
+		 *
+		 * @param neighbours the cells each cell of the board can be reached from
+		 * @param directed   whether a cell can be reached from another cell
+		 *                   without the other cell being reachable from it
+		 * @param length     the number of cells in each path
+		 */
+		SecondHalves(final int[][] neighbours, final boolean directed, final int length) {
+			this.neighbours = neighbours;
+			this.length = length;
+			allCells = neighbours.length == Long.SIZE ? -1L : (1L << neighbours.length) - 1;
+			countsByCells = new ArrayList<>(neighbours.length);
+			for (int cell = 0; cell < neighbours.length; cell++) {
+				countsByCells.add(new HashMap<>());
+			}
+
+			final long startTime = System.currentTimeMillis();
+			pruner = new ConnectivityPruner(neighbours, directed);
+			for (int lastCell = 0; lastCell < neighbours.length; lastCell++) {
+				occupied = 1L << lastCell;
+				pruner.clear();
+				pruner.occupy(lastCell);
+				enumerate(lastCell, 1);
+			}
+			logger.info("Enumerated {} second halves of {} cells in {} ms", size(), length,
+					System.currentTimeMillis() - startTime);
+		}
+
+		private void enumerate(final int currentCell, final int cells) {
+			if (cells == length) {
+				countsByCells.get(currentCell).merge(occupied, 1L, Long::sum);
+				return;
+			}
+
+			for (int next : neighbours[currentCell]) {
+				if ((occupied & (1L << next)) != 0) {
+					continue;
+				}
+
+				occupied |= 1L << next;
+				pruner.occupy(next);
+				if (!pruner.isDeadEnd(next)) {
+					enumerate(next, cells + 1);
+				}
+				pruner.release(next);
+				occupied &= ~(1L << next);
+			}
+		}
+
+		/**
+		 * Returns the number of paths continuing from the middle cell of a
+		 * solution over all the cells not covered by its first half.
+		 *
+		 * @param middleCell     the last cell of the first half
+		 * @param firstHalfCells the cells covered by the first half
+		 */
+		long count(final int middleCell, final long firstHalfCells) {
+			final Long count = countsByCells.get(middleCell).get((allCells & ~firstHalfCells) | 1L << middleCell);
+			return count == null ? 0 : count;
+		}
+
+		/**
+		 * Returns the number of distinct sets of cells and starting cells of the paths.
+		 */
+		int size() {
+			return countsByCells.stream().mapToInt(Map::size).sum();
+		}
+	}
+}
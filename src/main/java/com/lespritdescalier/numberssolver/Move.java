@@ -43,6 +43,42 @@ enum Move {
 		};
 	}
 
+	/**
+	 * Returns the horizontally mirrored counterpart of the move, i.e. the move
+	 * mirrored over the vertical axis so that east and west are swapped.
+	 *
+	 * @return the horizontally mirrored counterpart move of the original
+	 */
+	public Move mirrorHorizontally() {
+		return switch (this) {
+			case NE -> NW;
+			case E -> W;
+			case SE -> SW;
+			case SW -> SE;
+			case W -> E;
+			case NW -> NE;
+			default -> this;
+		};
+	}
+
+	/**
+	 * Returns the vertically mirrored counterpart of the move, i.e. the move
+	 * mirrored over the horizontal axis so that north and south are swapped.
+	 *
+	 * @return the vertically mirrored counterpart move of the original
+	 */
+	public Move mirrorVertically() {
+		return switch (this) {
+			case N -> S;
+			case NE -> SE;
+			case SE -> NE;
+			case S -> N;
+			case SW -> NW;
+			case NW -> SW;
+			default -> this;
+		};
+	}
+
 	/**
 	 * Returns the move rotated by 90 degrees.
 	 *
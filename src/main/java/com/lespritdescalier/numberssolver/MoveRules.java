@@ -0,0 +1,222 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rules of where the next number can be entered relative to the last
+ * one. Each rule set has at most one move in each of the eight directions of
+ * {@link Move}, and each move can change the column and the row by any amount.
+ * The original puzzle moves three cells straight or two cells diagonally, as
+ * in {@link #DEFAULT}.
+ * <p>
+ * A solution found with a rule set is stored as its starting cell and the
+ * directions of its moves, so the moves of the solution are only meaningful
+ * with the same rules.
+ * <p>
+ * The symmetries of the board that map each move of the rules to another
+ * move of the rules, as done by {@link Symmetry#apply(Move)}, are derived
+ * from the rules, and only those symmetries are used to deduce the solutions
+ * from each other. E.g. moves in only some of the directions, or knight-like
+ * moves, which {@link Symmetry#apply(Move)} can't mirror, break some of the
+ * symmetries.
+ */
+public final class MoveRules {
+	private static final Move[] MOVES = Move.values();
+
+	/**
+	 * The moves of the original puzzle: three cells straight or two cells
+	 * diagonally.
+	 */
+	public static final MoveRules DEFAULT = straightAndDiagonal(Move.PositionChanges.STRAIGHT_MOVE_LENGTH,
+			Move.PositionChanges.DIAGONAL_MOVE_LENGTH);
+
+	/**
+	 * The column and row changes of the move in each direction, indexed by
+	 * the ordinal of the move. Both are zero for a direction without a move.
+	 */
+	private final int[] colChanges;
+	private final int[] rowChanges;
+
+	private MoveRules(final int[] colChanges, final int[] rowChanges) {
+		this.colChanges = colChanges;
+		this.rowChanges = rowChanges;
+	}
+
+	/**
+	 * Returns the rules of moving the given number of cells straight or
+	 * diagonally in each of the eight directions.
+	 *
+	 * @param straightLength the length of the moves to north, east, south and
+	 *                       west, or zero for no such moves
+	 * @param diagonalLength the length of the diagonal moves, or zero for no
+	 *                       such moves
+	 */
+	public static MoveRules straightAndDiagonal(final int straightLength, final int diagonalLength) {
+		final int[] colChanges = new int[MOVES.length];
+		final int[] rowChanges = new int[MOVES.length];
+		for (Move move : MOVES) {
+			final boolean diagonal = move.colChange != 0 && move.rowChange != 0;
+			final int length = diagonal ? diagonalLength : straightLength;
+			colChanges[move.ordinal()] = Integer.signum(move.colChange) * length;
+			rowChanges[move.ordinal()] = Integer.signum(move.rowChange) * length;
+		}
+		return new MoveRules(colChanges, rowChanges).validated();
+	}
+
+	/**
+	 * Returns the rules of moving like a knight in chess, one cell in one
+	 * direction and two cells in the other. Each move takes the place of the
+	 * direction after which it turns clockwise, e.g. one cell east and two
+	 * north for {@link Move#N}, so that the rotations of the board map the
+	 * moves to each other. The mirrorings don't, as they map each direction
+	 * of {@link Move} to a direction of the other kind than the knight moves.
+	 */
+	public static MoveRules knight() {
+		return new MoveRules(
+				new int[]{1, 2, 2, 1, -1, -2, -2, -1},
+				new int[]{-2, -1, 1, 2, 2, 1, -1, -2}).validated();
+	}
+
+	/**
+	 * Returns these rules with the move in the given direction replaced by a
+	 * move changing the column and the row by the given amounts.
+	 */
+	public MoveRules with(final Move direction, final int colChange, final int rowChange) {
+		final int[] newColChanges = colChanges.clone();
+		final int[] newRowChanges = rowChanges.clone();
+		newColChanges[direction.ordinal()] = colChange;
+		newRowChanges[direction.ordinal()] = rowChange;
+		return new MoveRules(newColChanges, newRowChanges).validated();
+	}
+
+	/**
+	 * Returns these rules without the moves in the given directions.
+	 */
+	public MoveRules without(final Move... directions) {
+		final int[] newColChanges = colChanges.clone();
+		final int[] newRowChanges = rowChanges.clone();
+		for (Move direction : directions) {
+			newColChanges[direction.ordinal()] = 0;
+			newRowChanges[direction.ordinal()] = 0;
+		}
+		return new MoveRules(newColChanges, newRowChanges).validated();
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the rules have no moves, or two
+	 *                                  moves lead to the same cell
+	 */
+	private MoveRules validated() {
+		final List<Move> moves = getMoves();
+		if (moves.isEmpty()) {
+			throw new IllegalArgumentException("Move rules need at least one move");
+		}
+		for (Move move : moves) {
+			for (Move other : moves) {
+				if (move.ordinal() < other.ordinal() && colChange(move) == colChange(other) && rowChange(move) == rowChange(other)) {
+					throw new IllegalArgumentException("Moves " + move.name() + " and " + other.name() + " lead to the same cell");
+				}
+			}
+		}
+		return this;
+	}
+
+	public boolean allows(final Move move) {
+		return colChanges[move.ordinal()] != 0 || rowChanges[move.ordinal()] != 0;
+	}
+
+	public int colChange(final Move move) {
+		return colChanges[move.ordinal()];
+	}
+
+	public int rowChange(final Move move) {
+		return rowChanges[move.ordinal()];
+	}
+
+	/**
+	 * Returns the moves of the rules, in the order of {@link Move}.
+	 */
+	public List<Move> getMoves() {
+		final List<Move> moves = new ArrayList<>();
+		for (Move move : MOVES) {
+			if (allows(move)) {
+				moves.add(move);
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Returns the position the given move leads to from the given position.
+	 */
+	public Position apply(final Position position, final Move move) {
+		return new Position(position.col + colChange(move), position.row + rowChange(move));
+	}
+
+	/**
+	 * Tells whether every move can be undone by another move of the rules.
+	 * The cells reachable from a cell are then the cells it can be reached
+	 * from.
+	 */
+	public boolean isReversible() {
+		for (Move move : getMoves()) {
+			boolean undone = false;
+			for (Move other : getMoves()) {
+				undone |= colChange(other) == -colChange(move) && rowChange(other) == -rowChange(move);
+			}
+			if (!undone) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the symmetries of a board of the given size that map each move
+	 * of the rules to the move of the rules in the direction given by
+	 * {@link Symmetry#apply(Move)}, starting with the identity. Only these
+	 * symmetries map the solutions of the board to other solutions.
+	 */
+	List<Symmetry> preservedSymmetries(final int boardWidth, final int boardHeight) {
+		final Position origin = new Position(0, 0);
+		final List<Symmetry> preserved = new ArrayList<>();
+		for (Symmetry symmetry : Symmetry.of(boardWidth, boardHeight)) {
+			final Position mappedOrigin = symmetry.apply(origin, boardWidth, boardHeight);
+			boolean mapsMoves = true;
+			for (Move move : getMoves()) {
+				final Move image = symmetry.apply(move);
+				final Position mappedTarget = symmetry.apply(apply(origin, move), boardWidth, boardHeight);
+				mapsMoves &= allows(image) && apply(mappedOrigin, image).equals(mappedTarget);
+			}
+			if (mapsMoves) {
+				preserved.add(symmetry);
+			}
+		}
+		return preserved;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (!(obj instanceof MoveRules)) {
+			return false;
+		}
+		final MoveRules other = (MoveRules) obj;
+		return Arrays.equals(colChanges, other.colChanges) && Arrays.equals(rowChanges, other.rowChanges);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(colChanges) + Arrays.hashCode(rowChanges);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (Move move : getMoves()) {
+			sb.append(sb.length() == 0 ? "" : " ").append(move.name()).append(String.format("(%d,%d)", colChange(move), rowChange(move)));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,64 @@
+package com.lespritdescalier.numberssolver;
+
+/**
+ * Counts the progress of a single solver locally and adds it to the shared
+ * {@link SearchProgress} of the starting point in batches, so the search
+ * doesn't touch shared memory for every visited node.
+ */
+class ProgressRecorder {
+	/**
+	 * The number of visited nodes between adding the counts to the shared progress.
+	 */
+	static final int FLUSH_INTERVAL = 1 << 16;
+
+	private final SearchProgress progress;
+
+	private long nodesVisited;
+	private long solutionsFound;
+	private int maxDepth;
+	private int nodesUntilFlush = FLUSH_INTERVAL;
+
+	ProgressRecorder(final SearchProgress progress) {
+		this.progress = progress;
+	}
+
+	void started() {
+		progress.taskStarted();
+	}
+
+	void finished() {
+		flush();
+		progress.taskFinished();
+	}
+
+	/**
+	 * Records a visit to a search node with the given number of moves made.
+	 */
+	void nodeVisited(final int depth) {
+		nodesVisited++;
+		if (depth > maxDepth) {
+			maxDepth = depth;
+		}
+		if (--nodesUntilFlush == 0) {
+			flush();
+		}
+	}
+
+	void solutionFound() {
+		solutionsFound++;
+	}
+
+	/**
+	 * Records solutions counted at once without visiting their last nodes.
+	 */
+	void solutionsFound(final long count) {
+		solutionsFound += count;
+	}
+
+	private void flush() {
+		progress.add(nodesVisited, solutionsFound, maxDepth);
+		nodesVisited = 0;
+		solutionsFound = 0;
+		nodesUntilFlush = FLUSH_INTERVAL;
+	}
+}
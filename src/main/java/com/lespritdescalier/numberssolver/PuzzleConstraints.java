@@ -0,0 +1,291 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Numbers that a solution has to have in given cells, for variants of the
+ * puzzle where some of the numbers are already entered in the grid, or the
+ * last number has to be entered in a given cell.
+ * <p>
+ * The search only enters each fixed number in its own cell, and leaves the
+ * fixed cells free for their own numbers. After entering each number, it
+ * checks that the cell of the next fixed number can still be reached in
+ * exactly the right number of moves.
+ * <p>
+ * The fixed numbers break some or all of the symmetries of the board: a
+ * solution can only be deduced from another by a symmetry that maps each
+ * fixed cell to a cell fixed to the same number. The solutions are searched
+ * and deduced using only those symmetries.
+ */
+public class PuzzleConstraints {
+	/**
+	 * The cell of a number that isn't fixed to any cell.
+	 */
+	static final int FREE = -1;
+
+	public final int boardWidth;
+	public final int boardHeight;
+	private final int cellCount;
+
+	/**
+	 * The cell each number has to be entered in, or {@link #FREE}, indexed by
+	 * the number.
+	 */
+	private final int[] cellsByNumber;
+
+	/**
+	 * The number each cell is fixed to, or zero, indexed by the cell.
+	 */
+	private final int[] numbersByCell;
+
+	/**
+	 * The smallest fixed number greater than each number, or zero if there
+	 * is none, indexed by the number.
+	 */
+	private final int[] nextFixedNumbers;
+
+	private final List<Symmetry> preservedSymmetries;
+
+	/**
+	 * Creates constraints keeping the numbers already entered on the given
+	 * board in their cells.
+	 *
+	 * @param prefilled a board with some of the numbers entered
+	 * @throws IllegalArgumentException if a number on the board is out of the
+	 *                                  range of the puzzle or entered twice
+	 */
+	public PuzzleConstraints(final Board prefilled) {
+		this(prefilled, null);
+	}
+
+	/**
+	 * Creates constraints keeping the numbers already entered on the given
+	 * board in their cells, and requiring the last number to be entered in
+	 * the given cell.
+	 *
+	 * @param prefilled   a board with some of the numbers entered
+	 * @param endPosition the cell of the last number, or null for any cell
+	 * @throws IllegalArgumentException if a number on the board is out of the
+	 *                                  range of the puzzle or entered twice, or
+	 *                                  the end cell has another number
+	 */
+	public PuzzleConstraints(final Board prefilled, final Position endPosition) {
+		boardWidth = prefilled.width;
+		boardHeight = prefilled.height;
+		cellCount = boardWidth * boardHeight;
+		cellsByNumber = new int[cellCount + 1];
+		numbersByCell = new int[cellCount];
+		Arrays.fill(cellsByNumber, FREE);
+
+		for (int row = 0; row < boardHeight; row++) {
+			for (int col = 0; col < boardWidth; col++) {
+				final Position position = new Position(col, row);
+				if (prefilled.isPositionOccupied(position)) {
+					fix(prefilled.getNumber(position), position);
+				}
+			}
+		}
+		if (endPosition != null && !(isOnBoard(endPosition) && cellsByNumber[cellCount] == getCellIndex(endPosition))) {
+			fix(cellCount, endPosition);
+		}
+
+		nextFixedNumbers = new int[cellCount + 1];
+		for (int number = cellCount - 1; number >= 0; number--) {
+			nextFixedNumbers[number] = cellsByNumber[number + 1] != FREE ? number + 1 : nextFixedNumbers[number + 1];
+		}
+		preservedSymmetries = findPreservedSymmetries();
+	}
+
+	/**
+	 * Creates constraints only requiring the last number to be entered in the
+	 * given cell of an empty board.
+	 */
+	public static PuzzleConstraints endingIn(final int boardWidth, final int boardHeight, final Position endPosition) {
+		return new PuzzleConstraints(new Board(boardWidth, boardHeight), endPosition);
+	}
+
+	private void fix(final int number, final Position position) {
+		if (number < 1 || number > cellCount) {
+			throw new IllegalArgumentException("Number " + number + " in " + position + " is not between 1 and " + cellCount);
+		}
+		if (!isOnBoard(position)) {
+			throw new IllegalArgumentException("Cell " + position + " is not on the board");
+		}
+		final int cell = getCellIndex(position);
+		if (cellsByNumber[number] != FREE || numbersByCell[cell] != 0) {
+			throw new IllegalArgumentException("Number " + number + " in " + position + " conflicts with another fixed number");
+		}
+		cellsByNumber[number] = cell;
+		numbersByCell[cell] = number;
+	}
+
+	private boolean isOnBoard(final Position pos) {
+		return pos.col >= 0 && pos.col < boardWidth && pos.row >= 0 && pos.row < boardHeight;
+	}
+
+	private int getCellIndex(final Position pos) {
+		return pos.row * boardWidth + pos.col;
+	}
+
+	private Position getPosition(final int cell) {
+		return new Position(cell % boardWidth, cell / boardWidth);
+	}
+
+	private List<Symmetry> findPreservedSymmetries() {
+		final List<Symmetry> preserved = new ArrayList<>();
+		for (Symmetry symmetry : Symmetry.of(boardWidth, boardHeight)) {
+			boolean keepsNumbers = true;
+			for (int cell = 0; cell < cellCount && keepsNumbers; cell++) {
+				final int image = getCellIndex(symmetry.apply(getPosition(cell), boardWidth, boardHeight));
+				keepsNumbers = numbersByCell[image] == numbersByCell[cell];
+			}
+			if (keepsNumbers) {
+				preserved.add(symmetry);
+			}
+		}
+		return preserved;
+	}
+
+	/**
+	 * Returns the symmetries of the board mapping each fixed cell to a cell
+	 * fixed to the same number, starting with the identity.
+	 */
+	List<Symmetry> getPreservedSymmetries() {
+		return preservedSymmetries;
+	}
+
+	/**
+	 * Returns those of the given symmetries that the constraints preserve, in
+	 * the same order.
+	 */
+	List<Symmetry> preservedOf(final List<Symmetry> symmetries) {
+		final List<Symmetry> preserved = new ArrayList<>(symmetries);
+		preserved.retainAll(preservedSymmetries);
+		return preserved;
+	}
+
+	/**
+	 * Returns the cells the search needs to be started from to find all the
+	 * solutions that can't be deduced from each other by the symmetries of
+	 * the given board symmetry, which are expected to be preserved by the
+	 * constraints: the cell of the number 1 if it's fixed, or otherwise the
+	 * unique starting cells of the board not fixed to another number.
+	 */
+	List<Position> getUniqueStartingPoints(final BoardSymmetry boardSymmetry) {
+		if (cellsByNumber[1] != FREE) {
+			return List.of(getPosition(cellsByNumber[1]));
+		}
+
+		// The preserved symmetries map the free cells only to each other
+		final List<Position> startingPoints = new ArrayList<>();
+		for (Position position : boardSymmetry.getUniqueStartingPoints()) {
+			if (numbersByCell[getCellIndex(position)] == 0) {
+				startingPoints.add(position);
+			}
+		}
+		return startingPoints;
+	}
+
+	/**
+	 * Tells whether the given number can be entered in the given cell: the
+	 * number has to be entered in its own cell if it's fixed, and in a cell
+	 * not fixed to another number if it isn't.
+	 */
+	boolean allows(final int number, final int cell) {
+		final int fixedCell = cellsByNumber[number];
+		return fixedCell == FREE ? numbersByCell[cell] == 0 : fixedCell == cell;
+	}
+
+	/**
+	 * Tells whether the given number can be entered in the given cell by
+	 * {@link #allows(int, int)}, and the cell of the next fixed number can
+	 * still be reached from it in exactly the right number of moves.
+	 *
+	 * @param minimumMoves the minimums returned by
+	 *                     {@link #minimumMovesToFixedCells(SuccessorTable)}
+	 *                     for the moves of the search
+	 */
+	boolean allowsOnPath(final int number, final int cell, final int[][] minimumMoves) {
+		if (!allows(number, cell)) {
+			return false;
+		}
+
+		final int nextFixedNumber = nextFixedNumber(number);
+		if (nextFixedNumber == 0) {
+			return true;
+		}
+		final int movesLeft = nextFixedNumber - number;
+		return minimumMoves[nextFixedNumber][(movesLeft & 1) * cellCount + cell] <= movesLeft;
+	}
+
+	/**
+	 * Returns the smallest fixed number greater than the given number, or
+	 * zero if there is none.
+	 */
+	int nextFixedNumber(final int number) {
+		return nextFixedNumbers[number];
+	}
+
+	/**
+	 * Returns the minimum number of moves from each cell to the cell of each
+	 * fixed number, separately for an even and an odd number of moves. The
+	 * cell of a fixed number can be reached in exactly n moves only if n is
+	 * at least the minimum for the parity of n. With reversible moves, that's
+	 * also enough when ignoring the occupied cells, as a path can be made two
+	 * moves longer by moving back and forth. The minimums ignore the occupied
+	 * cells, so they only rule out some of the paths that can't reach the cell.
+	 *
+	 * @param successors the moves of the board
+	 * @return the minimums indexed by the fixed number and then by
+	 * parity * cellCount + cell, or null for the numbers that aren't fixed;
+	 * {@link Integer#MAX_VALUE} if the cell can't be reached with the parity
+	 */
+	int[][] minimumMovesToFixedCells(final SuccessorTable successors) {
+		final int[][] minimumMoves = new int[cellCount + 1][];
+		for (int number = 1; number <= cellCount; number++) {
+			if (cellsByNumber[number] == FREE) {
+				continue;
+			}
+
+			// A breadth-first search backwards from the fixed cell, over the
+			// states of being in a cell after an even or odd number of moves
+			final int[] moves = new int[2 * cellCount];
+			Arrays.fill(moves, Integer.MAX_VALUE);
+			final Queue<Integer> queue = new ArrayDeque<>();
+			moves[cellsByNumber[number]] = 0;
+			queue.add(cellsByNumber[number]);
+			while (!queue.isEmpty()) {
+				final int state = queue.poll();
+				final int parity = state / cellCount;
+				for (int predecessor : successors.sourcesByCell[state % cellCount]) {
+					final int next = (1 - parity) * cellCount + predecessor;
+					if (moves[next] == Integer.MAX_VALUE) {
+						moves[next] = moves[state] + 1;
+						queue.add(next);
+					}
+				}
+			}
+			minimumMoves[number] = moves;
+		}
+		return minimumMoves;
+	}
+
+	/**
+	 * Lists the fixed numbers with their cells in the order of the numbers,
+	 * e.g. {@code 1(0,0) 25(4,4)}.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (int number = 1; number <= cellCount; number++) {
+			if (cellsByNumber[number] != FREE) {
+				sb.append(sb.length() == 0 ? "" : " ").append(number).append(getPosition(cellsByNumber[number]));
+			}
+		}
+		return sb.toString();
+	}
+}
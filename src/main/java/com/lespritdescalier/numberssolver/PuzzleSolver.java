@@ -4,14 +4,24 @@ import org.apache.commons.lang3.time.StopWatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 
 /**
@@ -23,39 +33,308 @@ import java.util.concurrent.Future;
  * @author <a href="https://github.com/mjviljan">Mika Viljanen</a>
  */
 public class PuzzleSolver {
+	public static final int DEFAULT_SPLIT_DEPTH = 2;
+	public static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofMinutes(1);
+
+	/**
+	 * The number of solutions passed to a {@link SolutionSink} at a time.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1 << 10;
+
+	/**
+	 * The number of batches of solutions the search can get ahead of a
+	 * {@link SolutionSink} before waiting for it.
+	 */
+	static final int MAX_PENDING_BATCHES = 16;
+
 	private final Logger logger = LogManager.getLogger(PuzzleSolver.class);
 
-	private final int boardSize;
 	private final int boardWidth;
 	private final int boardHeight;
 
-	private final List<Solution> solutions;
+	/**
+	 * How the solutions from the whole board are deduced from the solutions
+	 * found by the search. Only includes the symmetries preserved by the
+	 * move rules and the constraints, if any.
+	 */
+	private BoardSymmetry boardSymmetry;
+
+	/**
+	 * Where the next number can be entered relative to the last one.
+	 */
+	private MoveRules moveRules = MoveRules.DEFAULT;
+
+	/**
+	 * The numbers the solutions have to have in given cells, or null if any
+	 * solution is accepted.
+	 */
+	private PuzzleConstraints constraints;
+
+	/**
+	 * The solutions found by the search, and all the solutions deduced from
+	 * them by mirroring and rotating.
+	 */
+	private final List<Solution> uniqueSolutions;
+	private List<Solution> solutions;
+
+	/**
+	 * The solutions deduced from the unique solutions of each starting point,
+	 * if they are deduced during the search instead of when accessed.
+	 */
+	private final List<Solution[]> expandedSolutions = new ArrayList<>();
+	private boolean expandSolutions;
+
+	private final HashMap<Position, Long> solutionsByStartingPoint = new HashMap<>();
+
+	/**
+	 * The statistics of all the solutions, if collected.
+	 */
+	private SolutionStatistics statistics;
+
+	/**
+	 * The move rules compiled for the board, before each search.
+	 */
+	private SuccessorTable successors;
+
+	private final SearchEngine searchEngine;
+
+	/**
+	 * The number of moves after which the search from a starting point is no
+	 * longer split into separate tasks.
+	 */
+	private int splitDepth = DEFAULT_SPLIT_DEPTH;
+
+	private final Queue<TaskTiming> taskTimings = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The file the progress of a solution count is periodically saved to, if any.
+	 */
+	private Path checkpointFile;
+	private Duration checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+	private SearchCheckpoint checkpoint;
+
+	/**
+	 * The time between logging the progress of the search, or null if the
+	 * progress is not monitored.
+	 */
+	private Duration progressInterval;
+
+	/**
+	 * The number of states in the transposition table of each thread when
+	 * counting the solutions, or zero if no table is used.
+	 */
+	private int transpositionTableSize;
+	private long transpositionTableLookups;
+	private long transpositionTableHits;
+
+	/**
+	 * How long a worker of a distributed search can go without renewing its
+	 * lease of a unit before the unit is given to another worker.
+	 */
+	private Duration workLease = WorkQueue.DEFAULT_LEASE;
 
-	private final HashMap<Position, Integer> solutionsByStartingPoint = new HashMap<>();
+	/**
+	 * How long a distributed search waits for the next unit to be completed
+	 * before giving up, or null to wait as long as it takes.
+	 */
+	private Duration workTimeout;
 
-	private final Move[][] possibleMovesByPoint;
+	/**
+	 * How the tasks of the search are run, and how many of them at a time.
+	 */
+	private ExecutionStrategy executionStrategy = ExecutionStrategy.WORK_STEALING;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
 
 	public PuzzleSolver(final int boardSize) {
-		this.boardSize = boardSize;
-		this.boardWidth = boardSize;
-		this.boardHeight = boardSize;
-		possibleMovesByPoint = new Move[boardWidth * boardHeight][];
-		solutions = new LinkedList<>();
+		this(boardSize, SearchEngine.BOARD);
 	}
 
-	protected List<Position> getUniqueSolutionStartingPoints() {
-		final List<Position> startingPoints = new LinkedList<>();
+	public PuzzleSolver(final int boardSize, final SearchEngine searchEngine) {
+		this(boardSize, boardSize, searchEngine);
+	}
 
-		int maxCol = (boardWidth - 1) / 2;
-		int maxRow = (boardHeight - 1) / 2;
+	public PuzzleSolver(final int boardWidth, final int boardHeight) {
+		this(boardWidth, boardHeight, SearchEngine.BOARD);
+	}
 
-		for (int row = 0; row <= maxRow; row++) {
-			for (int col = row; col <= maxCol; col++) {
-				startingPoints.add(new Position(col, row));
-			}
+	public PuzzleSolver(final int boardWidth, final int boardHeight, final SearchEngine searchEngine) {
+		this.searchEngine = searchEngine;
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.boardSymmetry = new BoardSymmetry(boardWidth, boardHeight);
+		uniqueSolutions = new ArrayList<>();
+		solutions = Collections.emptyList();
+	}
+
+	/**
+	 * Sets how many moves deep the search from each starting point is split
+	 * into separate tasks. With a split depth of zero, each starting point is
+	 * searched in a single task.
+	 *
+	 * @param splitDepth the number of first moves fixed for each task
+	 */
+	public void setSplitDepth(final int splitDepth) {
+		this.splitDepth = splitDepth;
+	}
+
+	/**
+	 * Makes counting the solutions save its progress to the given file
+	 * periodically and once more when the count is complete.
+	 *
+	 * @param checkpointFile the file to save the progress to
+	 * @param interval       the time between saves
+	 */
+	public void setCheckpointFile(final Path checkpointFile, final Duration interval) {
+		this.checkpointFile = checkpointFile;
+		this.checkpointInterval = interval;
+	}
+
+	/**
+	 * Makes the searches monitor their progress from each starting point,
+	 * exposing it through JMX and logging a summary of it periodically.
+	 *
+	 * @param interval the time between logging the progress
+	 */
+	public void setProgressReporting(final Duration interval) {
+		this.progressInterval = interval;
+	}
+
+	/**
+	 * Makes counting the solutions store the counts of the subtrees of the
+	 * search in a transposition table, so that a subtree reached again by a
+	 * different path isn't searched again. Each subtree searched at a time
+	 * gets a table of its own, so at most as many tables are created as set
+	 * by {@link #setParallelism(int)}, whatever the execution strategy. Only
+	 * used by the engines keeping the occupied cells as bitmasks.
+	 *
+	 * @param size the number of states stored in each table, or zero for no table
+	 */
+	public void setTranspositionTableSize(final int size) {
+		this.transpositionTableSize = size;
+	}
+
+	/**
+	 * Sets how long a worker of a distributed search can go without renewing
+	 * its lease of a unit, e.g. after the worker process has died, before the
+	 * unit is given to another worker.
+	 *
+	 * @param lease the time a unit is kept by a worker without renewing
+	 */
+	public void setWorkLease(final Duration lease) {
+		this.workLease = lease;
+	}
+
+	/**
+	 * Sets how long a distributed search waits for the workers to complete
+	 * the next unit, e.g. when no workers have been started, before giving up
+	 * the search. By default the search waits as long as it takes.
+	 *
+	 * @param timeout the longest time to wait without any unit being
+	 *                completed, or null for no limit
+	 */
+	public void setWorkTimeout(final Duration timeout) {
+		this.workTimeout = timeout;
+	}
+
+	/**
+	 * Sets how the tasks of the searches are run. Whichever strategy is used,
+	 * the searches find the same solutions in the same order.
+	 *
+	 * @param strategy the way of running the tasks
+	 * @throws UnsupportedOperationException if the strategy is not supported
+	 *                                       by the running JVM
+	 */
+	public void setExecutionStrategy(final ExecutionStrategy strategy) {
+		if (!strategy.isSupported()) {
+			throw new UnsupportedOperationException(strategy + " is not supported on Java " + Runtime.version());
 		}
+		this.executionStrategy = strategy;
+	}
 
-		return startingPoints;
+	/**
+	 * Sets the number of threads searching at a time, one per core by
+	 * default. Not used by {@link ExecutionStrategy#VIRTUAL_THREADS}, whose
+	 * threads are run by a carrier thread per core.
+	 *
+	 * @param parallelism the number of threads searching at a time
+	 */
+	public void setParallelism(final int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive, got " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Makes finding the solutions deduce all the mirrored and rotated
+	 * solutions up front instead of when they are accessed. The solutions
+	 * found from each starting point are expanded as soon as its search is
+	 * complete, in parallel with each other and with the rest of the search.
+	 * This keeps all the solutions in memory, but makes going through them
+	 * afterwards only a lookup. Has to be set before finding any solutions.
+	 *
+	 * @param expandSolutions whether to deduce the solutions during the search
+	 */
+	public void setExpandSolutions(final boolean expandSolutions) {
+		this.expandSolutions = expandSolutions;
+	}
+
+	/**
+	 * Makes the searches only find the solutions that have the numbers fixed
+	 * by the given constraints in their cells, e.g. the numbers already
+	 * entered on a partially filled board. The constraints are checked during
+	 * the search instead of filtering the solutions afterwards, and only the
+	 * symmetries of the board that the constraints preserve are used to
+	 * deduce the solutions from each other. Only supported by the
+	 * {@link SearchEngine#BOARD} engine, but also kept when finding the first
+	 * solutions, whose Warnsdorff search doesn't depend on the engine.
+	 *
+	 * @param constraints the numbers fixed to given cells, or null for no constraints
+	 */
+	public void setConstraints(final PuzzleConstraints constraints) {
+		if (constraints == null) {
+			this.constraints = null;
+			updateBoardSymmetry();
+			return;
+		}
+		if (constraints.boardWidth != boardWidth || constraints.boardHeight != boardHeight) {
+			throw new IllegalArgumentException("Constraints are for a " + constraints.boardWidth + "x" + constraints.boardHeight
+					+ " board, not " + boardWidth + "x" + boardHeight);
+		}
+		if (searchEngine != SearchEngine.BOARD) {
+			throw new UnsupportedOperationException("Constrained search is not supported by the " + searchEngine + " engine");
+		}
+		this.constraints = constraints;
+		updateBoardSymmetry();
+	}
+
+	/**
+	 * Makes the searches enter the numbers by the given move rules instead of
+	 * the moves of the original puzzle. Only the symmetries of the board that
+	 * the rules preserve are used to deduce the solutions from each other.
+	 *
+	 * @param moveRules where the next number can be entered relative to the last one
+	 */
+	public void setMoveRules(final MoveRules moveRules) {
+		this.moveRules = moveRules;
+		updateBoardSymmetry();
+	}
+
+	private void updateBoardSymmetry() {
+		final List<Symmetry> symmetries = moveRules.preservedSymmetries(boardWidth, boardHeight);
+		boardSymmetry = new BoardSymmetry(boardWidth, boardHeight, constraints != null ? constraints.preservedOf(symmetries) : symmetries);
+	}
+
+	private SearchContext createSearchContext(final List<Position> startingPoints) {
+		final SearchMetrics metrics = progressInterval != null ? new SearchMetrics(startingPoints, progressInterval) : null;
+		return new SearchContext(searchEngine, successors, splitDepth, taskTimings, metrics, transpositionTableSize, parallelism, constraints);
+	}
+
+	protected List<Position> getUniqueSolutionStartingPoints() {
+		if (constraints != null) {
+			return constraints.getUniqueStartingPoints(boardSymmetry);
+		}
+		return boardSymmetry.getUniqueStartingPoints();
 	}
 
 	/**
@@ -64,98 +343,292 @@ public class PuzzleSolver {
 	 * position.
 	 */
 	public void findSolutionsFromPositions(List<Position> startingPoints) {
-		final ExecutorService executorService = Executors.newWorkStealingPool();
+		final SearchExecutor executor = new SearchExecutor(executionStrategy, parallelism);
+		final SearchContext context = createSearchContext(startingPoints);
 
+		context.start();
 		try {
-			List<SolverForStartingPoint> solvers = new ArrayList<>();
+			List<CompletableFuture<List<Solution>>> tasks = new ArrayList<>();
+			List<CompletableFuture<Solution[]>> expansions = new ArrayList<>();
 			for (Position position : startingPoints) {
-				solvers.add(new SolverForStartingPoint(position, boardSize, possibleMovesByPoint));
+				final CompletableFuture<List<Solution>> task = executor.submit(new SubtreeSearchTask.Solutions(context, position));
+				tasks.add(task);
+				if (expandSolutions) {
+					final BoardSymmetry symmetry = boardSymmetry;
+					expansions.add(executor.thenApply(task, unique -> SymmetricSolutionList.expand(symmetry, unique)));
+				}
 			}
-			List<Future<List<Solution>>> solutionsFromPositions = executorService.invokeAll(solvers);
 
-			solutionsFromPositions.forEach(future -> {
-				try {
-					final List<Solution> solutionsFromPosition = future.get();
-					if (solutionsFromPosition.size() > 0) {
-						solutions.addAll(solutionsFromPosition);
-						final Position pos = solutionsFromPosition.get(0).startPosition;
-						solutionsByStartingPoint.put(pos, solutionsFromPosition.size());
-					}
-				} catch (InterruptedException | ExecutionException e) {
-					throw new RuntimeException(e);
-				}
-			});
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+			for (CompletableFuture<List<Solution>> task : tasks) {
+				uniqueSolutions.addAll(SearchExecutor.join(task));
+			}
+			for (CompletableFuture<Solution[]> expansion : expansions) {
+				expandedSolutions.add(SearchExecutor.join(expansion));
+			}
 		} finally {
-			executorService.shutdown();
+			executor.close();
+			context.finish();
 		}
 
-		mirrorUniqueSolutions();
-		rotateSolutions();
+		solutions = expandSolutions
+				? new SymmetricSolutionList(boardSymmetry, uniqueSolutions, expandedSolutions)
+				: new SymmetricSolutionList(boardSymmetry, uniqueSolutions);
+		countUniqueSolutions(startingPoints);
 	}
 
-	private void mirrorUniqueSolutions() {
-		final List<Solution> mirroredSolutions = new LinkedList<>();
+	/**
+	 * Deduces the number of solutions from each starting point from the unique
+	 * solutions, without creating the mirrored and rotated solutions.
+	 */
+	private void countUniqueSolutions(final List<Position> startingPoints) {
+		final Map<Position, SolutionCount> uniqueCounts = new LinkedHashMap<>();
+		for (Position position : startingPoints) {
+			uniqueCounts.put(position, new SolutionCount(position));
+		}
+		for (Solution unique : uniqueSolutions) {
+			uniqueCounts.get(unique.startPosition).increment(unique.moves.get(0));
+		}
 
-		for (Solution original : solutions) {
-			Solution mirrored = original.mirrorDiagonally();
+		addSymmetricSolutionCounts(new ArrayList<>(uniqueCounts.values()));
+	}
 
-			if (mirrored != null) {
-				mirroredSolutions.add(mirrored);
+	/**
+	 * Count all solutions for the board without creating them. The search is
+	 * started separately from each given position on the board, and the counts
+	 * for the rest of the board are deduced by the same mirroring and rotating
+	 * logic that is used for the solutions themselves.
+	 */
+	public void countSolutionsFromPositions(List<Position> startingPoints) {
+		final SearchExecutor executor = new SearchExecutor(executionStrategy, parallelism);
+		final ScheduledExecutorService checkpointSaver = Executors.newSingleThreadScheduledExecutor();
+		if (checkpointFile != null) {
+			if (checkpoint == null) {
+				checkpoint = new SearchCheckpoint(boardWidth, boardHeight, splitDepth, moveRules, constraints);
+			}
+			final long intervalMillis = checkpointInterval.toMillis();
+			checkpointSaver.scheduleWithFixedDelay(this::saveCheckpoint, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+		}
 
-				Position startPosition = mirrored.startPosition;
-				Integer oldCount = solutionsByStartingPoint.get(startPosition);
-				solutionsByStartingPoint.put(startPosition, oldCount != null ? oldCount + 1 : 1);
+		final SearchContext context = createSearchContext(startingPoints);
+		final List<SolutionCount> uniqueCounts = new ArrayList<>();
+		context.start();
+		try {
+			List<CompletableFuture<SolutionCount>> tasks = new ArrayList<>();
+			for (Position position : startingPoints) {
+				tasks.add(executor.submit(new SubtreeSearchTask.Counts(context, position, checkpoint)));
+			}
+
+			for (CompletableFuture<SolutionCount> task : tasks) {
+				uniqueCounts.add(SearchExecutor.join(task));
 			}
+		} finally {
+			executor.close();
+			checkpointSaver.shutdownNow();
+			context.finish();
+		}
+
+		transpositionTableLookups += context.transpositionTableLookups();
+		transpositionTableHits += context.transpositionTableHits();
+		if (transpositionTableSize > 0) {
+			logger.info("Found {} of {} subtree counts in the transposition tables ({} %)", transpositionTableHits,
+					transpositionTableLookups, String.format("%.1f", 100 * getTranspositionTableHitRate()));
+		}
+
+		if (checkpointFile != null) {
+			saveCheckpoint();
 		}
 
-		solutions.addAll(mirroredSolutions);
+		addSymmetricSolutionCounts(uniqueCounts);
 	}
 
-	private Solution rotateSolutionBy90Degrees(Solution original) {
-		Solution rotated90Deg = original.rotate(boardWidth);
+	/**
+	 * Adds the number of solutions deduced from the unique solutions counted
+	 * from each starting point to the counts of the cells the solutions start
+	 * from. Each symmetry of the board keeping a starting point in place adds
+	 * another set of the solutions to the starting point itself.
+	 */
+	private void addSymmetricSolutionCounts(final List<SolutionCount> uniqueCounts) {
+		for (SolutionCount count : uniqueCounts) {
+			if (count.total() > 0) {
+				for (Symmetry symmetry : boardSymmetry.symmetries) {
+					solutionsByStartingPoint.merge(symmetry.apply(count.startPosition, boardWidth, boardHeight), count.total(), Long::sum);
+				}
+			}
+		}
+	}
 
-		Position startPosition = rotated90Deg.startPosition;
-		Integer oldCount = solutionsByStartingPoint.get(startPosition);
-		solutionsByStartingPoint.put(startPosition, oldCount != null ? oldCount + 1 : 1);
+	private synchronized void saveCheckpoint() {
+		checkpoint.save(checkpointFile);
+		logger.debug("Saved checkpoint to {}", checkpointFile);
+	}
 
-		return rotated90Deg;
+	/**
+	 * Passes a unique solution and all the solutions deduced from it by
+	 * mirroring and rotating to the given consumer. The same solutions are
+	 * deduced as in {@link SymmetricSolutionList}, only in a different order.
+	 */
+	private void expandUniqueSolution(final Solution unique, final Consumer<Solution> consumer) {
+		for (Symmetry symmetry : boardSymmetry.symmetries) {
+			consumer.accept(symmetry.apply(unique, boardWidth, boardHeight));
+		}
 	}
 
-	private void rotateSolutions() {
-		final List<Solution> rotatedSolutions = new LinkedList<>();
+	/**
+	 * Find all solutions for the board and pass them to the given consumer as
+	 * they are found, without collecting them. The consumer is called from
+	 * several threads and in no particular order of the solutions.
+	 */
+	public void streamSolutionsFromPositions(List<Position> startingPoints, Consumer<Solution> consumer) {
+		final SearchExecutor executor = new SearchExecutor(executionStrategy, parallelism);
+		final Consumer<Solution> expandingConsumer = unique -> expandUniqueSolution(unique, solution -> {
+			consumer.accept(solution);
+			countSolution(solution);
+		});
+		final SearchContext context = createSearchContext(startingPoints);
+
+		context.start();
+		try {
+			List<CompletableFuture<Long>> tasks = new ArrayList<>();
+			for (Position position : startingPoints) {
+				tasks.add(executor.submit(new SubtreeSearchTask.Streaming(context, position, expandingConsumer)));
+			}
+
+			tasks.forEach(SearchExecutor::join);
+		} finally {
+			executor.close();
+			context.finish();
+		}
+	}
 
-		boolean isBoardSizeOdd = boardHeight % 2 != 0;
-		int axisRow = boardHeight / 2;
-		int axisCol = boardWidth / 2;
+	/**
+	 * Find solutions for the board until the given number of them have been
+	 * found. The search is started from each given position on the board and
+	 * split into tasks like {@link #findSolutionsFromPositions(List)}, but
+	 * attempting the moves by Warnsdorff's rule whatever the engine. As soon
+	 * as enough solutions have been found by any of the tasks, the running
+	 * tasks stop and the rest are cancelled.
+	 *
+	 * @param limit the number of solutions to find
+	 * @return the first solutions found, fewer than the limit only if the
+	 * board doesn't have more solutions
+	 */
+	public List<Solution> findFirstSolutionsFromPositions(final List<Position> startingPoints, final int limit) {
+		final FirstSolutions found = new FirstSolutions(limit, boardSymmetry);
+		if (found.isDone()) {
+			return found.getSolutions();
+		}
+		final SearchExecutor executor = new SearchExecutor(executionStrategy, parallelism);
+		final SearchContext context = createSearchContext(startingPoints);
+		found.whenDone().thenRun(context::stop);
 
-		for (Solution original : solutions) {
-			// If the board is odd in size (e.g. 5x5), skip the solutions on the middle
-			// row to avoid duplicates when rotating the solutions.
-			// (Otherwise solution on the middle row would be rotated to the upper
-			// middle column which already has its solutions.)
-			if (isBoardSizeOdd && original.startPosition.row == axisRow) {
-				continue;
+		context.start();
+		try {
+			final List<CompletableFuture<Long>> tasks = new ArrayList<>();
+			for (Position position : startingPoints) {
+				tasks.add(executor.submit(new SubtreeSearchTask.FirstFound(context, position, found::add)));
 			}
 
-			Solution rotated90Deg = rotateSolutionBy90Degrees(original);
-			rotatedSolutions.add(rotated90Deg);
+			final CompletableFuture<Void> searched = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+			SearchExecutor.join(CompletableFuture.anyOf(searched, found.whenDone()));
+			if (found.isDone()) {
+				// The subtrees still running return as soon as they notice
+				// that the search has stopped, and the rest aren't started
+				executor.cancel();
+			} else {
+				tasks.forEach(SearchExecutor::join);
+			}
+		} catch (RuntimeException | Error e) {
+			executor.cancel();
+			throw e;
+		} finally {
+			executor.close();
+			context.finish();
+		}
+		return found.getSolutions();
+	}
 
-			Solution rotated180Deg = rotateSolutionBy90Degrees(rotated90Deg);
-			rotatedSolutions.add(rotated180Deg);
+	/**
+	 * Collect statistics of all the solutions for the board without keeping
+	 * the solutions. The search is started separately from each given
+	 * position on the board, and the statistics of the solutions deduced by
+	 * mirroring and rotating are deduced from the statistics of the solutions
+	 * found.
+	 */
+	public void collectStatisticsFromPositions(List<Position> startingPoints) {
+		final SearchExecutor executor = new SearchExecutor(executionStrategy, parallelism);
+		final SearchContext context = createSearchContext(startingPoints);
+		final SolutionStatistics uniqueStatistics = new SolutionStatistics(moveRules, boardWidth, boardHeight);
 
-			// on odd-sized board, skip the middle column also
-			// on the last rotation to avoid duplicates
-			if (isBoardSizeOdd && original.startPosition.col == axisCol) {
-				continue;
+		context.start();
+		try {
+			List<CompletableFuture<SolutionStatistics>> tasks = new ArrayList<>();
+			for (Position position : startingPoints) {
+				tasks.add(executor.submit(new SubtreeSearchTask.Statistics(context, position)));
 			}
 
-			Solution rotated270Deg = rotateSolutionBy90Degrees(rotated180Deg);
-			rotatedSolutions.add(rotated270Deg);
+			for (CompletableFuture<SolutionStatistics> task : tasks) {
+				uniqueStatistics.add(SearchExecutor.join(task));
+			}
+		} finally {
+			executor.close();
+			context.finish();
 		}
 
-		solutions.addAll(rotatedSolutions);
+		statistics = uniqueStatistics.applySymmetries(boardSymmetry);
+		for (int row = 0; row < boardHeight; row++) {
+			for (int col = 0; col < boardWidth; col++) {
+				final Position position = new Position(col, row);
+				final long count = statistics.getSolutionsStartingFrom(position);
+				if (count > 0) {
+					solutionsByStartingPoint.merge(position, count, Long::sum);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find all solutions for the board and pass them to the given sink in
+	 * batches as they are found, without collecting them. The batches are
+	 * passed to the sink from a single thread while the search continues, and
+	 * the search waits for the sink whenever it gets too far ahead of it.
+	 *
+	 * @param sink      the receiver of the solutions
+	 * @param batchSize the number of solutions in each batch, except for the
+	 *                  last batch of each search task
+	 */
+	public void streamSolutionsFromPositions(List<Position> startingPoints, SolutionSink sink, int batchSize) {
+		final SearchExecutor executor = new SearchExecutor(executionStrategy, parallelism);
+		final SearchContext context = createSearchContext(startingPoints);
+
+		context.start();
+		try (SolutionBatcher batcher = new SolutionBatcher(sink, batchSize, MAX_PENDING_BATCHES)) {
+			List<CompletableFuture<Long>> tasks = new ArrayList<>();
+			for (Position position : startingPoints) {
+				tasks.add(executor.submit(new SubtreeSearchTask.Batched(context, position, batcher, this::expandUniqueSolution)));
+			}
+
+			try {
+				for (int i = 0; i < tasks.size(); i++) {
+					final long uniqueCount = SearchExecutor.join(tasks.get(i));
+					if (uniqueCount > 0) {
+						for (Symmetry symmetry : boardSymmetry.symmetries) {
+							solutionsByStartingPoint.merge(symmetry.apply(startingPoints.get(i), boardWidth, boardHeight), uniqueCount, Long::sum);
+						}
+					}
+				}
+			} catch (RuntimeException | Error e) {
+				// Stop the other tasks before closing the batcher, which they could be waiting for
+				executor.cancel();
+				throw e;
+			}
+		} finally {
+			executor.close();
+			context.finish();
+		}
+	}
+
+	private synchronized void countSolution(final Solution solution) {
+		solutionsByStartingPoint.merge(solution.startPosition, 1L, Long::sum);
 	}
 
 	private void logSolutionsByStartingPoint() {
@@ -164,7 +637,7 @@ public class PuzzleSolver {
 		for (int row = 0; row < boardHeight; row++) {
 			sb.append("\n");
 			for (int col = 0; col < boardWidth; col++) {
-				Integer sols = solutionsByStartingPoint.get(new Position(col, row));
+				Long sols = solutionsByStartingPoint.get(new Position(col, row));
 				sb.append(sols != null ? sols : "0").append("\t");
 			}
 		}
@@ -172,25 +645,14 @@ public class PuzzleSolver {
 		logger.info("Solutions by starting point: {}", sb.toString());
 	}
 
-	private void precalculateMovesForPoints() {
-		final Board board = new Board(boardSize);
-		for (int row = 0; row < boardHeight; row++) {
-			for (int col = 0; col < boardWidth; col++) {
-				Position pos = new Position(col, row);
-				List<Move> possibleMoves = new ArrayList<>();
-				for (Move moveCandidate : Move.values()) {
-					Position posCandidate = pos.applyMove(moveCandidate);
-					if (!board.isPositionOutOfBounds(posCandidate)) {
-						possibleMoves.add(moveCandidate);
-					}
-				}
-				possibleMovesByPoint[getCellIndex(row, col)] = possibleMoves.toArray(new Move[possibleMoves.size()]);
-			}
-		}
+	private void logTaskTimings() {
+		taskTimings.stream()
+				.max(Comparator.comparingLong(timing -> timing.durationNanos))
+				.ifPresent(slowest -> logger.info("Searched in {} tasks, slowest task {}", taskTimings.size(), slowest));
 	}
 
-	private int getCellIndex(final int row, final int col) {
-		return row * boardWidth + col;
+	private void precalculateMovesForPoints() {
+		successors = SuccessorTable.compile(moveRules, boardWidth, boardHeight);
 	}
 
 	/**
@@ -207,16 +669,341 @@ public class PuzzleSolver {
 		long duration = stopWatch.getTime();
 
 		logger.info("Found a total of {} solutions in {} milliseconds ({}x{})", solutions.size(), duration, boardWidth, boardHeight);
+		logTaskTimings();
+	}
+
+	/**
+	 * Count all possible solutions for the board without keeping them in memory,
+	 * and report the number of found solutions and the time (in milliseconds)
+	 * it took to count them.
+	 */
+	public void countSolutions() {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		precalculateMovesForPoints();
+		final List<Position> uniqueStartingPoints = getUniqueSolutionStartingPoints();
+		countSolutionsFromPositions(uniqueStartingPoints);
+		stopWatch.stop();
+		long duration = stopWatch.getTime();
+
+		logger.info("Counted a total of {} solutions in {} milliseconds ({}x{})", getSolutionCount(), duration, boardWidth, boardHeight);
+		logTaskTimings();
+	}
+
+	/**
+	 * Find the given number of solutions for the board, stopping the search
+	 * as soon as they have been found, and report the time (in milliseconds)
+	 * it took to find them. Unlike {@link #findSolutions()}, works on boards
+	 * too big for finding all the solutions, such as the 10&times;10 board of
+	 * the original puzzle.
+	 *
+	 * @param limit the number of solutions to find
+	 * @return the first solutions found
+	 */
+	public List<Solution> findFirstSolutions(final int limit) {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		precalculateMovesForPoints();
+		final List<Solution> found = findFirstSolutionsFromPositions(getUniqueSolutionStartingPoints(), limit);
+		stopWatch.stop();
+
+		logger.info("Found the first {} solutions in {} milliseconds ({}x{})", found.size(), stopWatch.getTime(), boardWidth, boardHeight);
+		return found;
+	}
+
+	/**
+	 * Find any single solution for the board, stopping the search as soon as
+	 * it has been found.
+	 *
+	 * @return the solution, or nothing if the board has no solutions
+	 */
+	public Optional<Solution> findAnySolution() {
+		return findFirstSolutions(1).stream().findFirst();
+	}
+
+	/**
+	 * Collect statistics of all possible solutions for the board, available
+	 * from {@link #getStatistics()} afterwards, and report the number of
+	 * solutions and the time (in milliseconds) it took to collect them.
+	 */
+	public void collectStatistics() {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		precalculateMovesForPoints();
+		final List<Position> uniqueStartingPoints = getUniqueSolutionStartingPoints();
+		collectStatisticsFromPositions(uniqueStartingPoints);
+		stopWatch.stop();
+		long duration = stopWatch.getTime();
+
+		logger.info("Collected statistics of a total of {} solutions in {} milliseconds ({}x{})", statistics.total(), duration, boardWidth, boardHeight);
+		logTaskTimings();
+	}
+
+	/**
+	 * Find all possible solutions for the board and pass them to the given
+	 * sink in batches as they are found, and report the number of found
+	 * solutions and the time (in milliseconds) it took to find them.
+	 *
+	 * @param sink the receiver of the solutions
+	 */
+	public void streamSolutions(final SolutionSink sink) {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		precalculateMovesForPoints();
+		final List<Position> uniqueStartingPoints = getUniqueSolutionStartingPoints();
+		streamSolutionsFromPositions(uniqueStartingPoints, sink, DEFAULT_BATCH_SIZE);
+		stopWatch.stop();
+		long duration = stopWatch.getTime();
+
+		logger.info("Streamed a total of {} solutions in {} milliseconds ({}x{})", getSolutionCount(), duration, boardWidth, boardHeight);
+		logTaskTimings();
+	}
+
+	/**
+	 * Find all possible solutions for the board and write them to the given
+	 * file as they are found, instead of keeping them in memory. Reports the
+	 * number of found solutions and the time (in milliseconds) it took to find
+	 * and write them.
+	 *
+	 * @param file the file to write the solutions to, in the format read by {@link SolutionReader}
+	 */
+	public void writeSolutions(final Path file) throws IOException {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		precalculateMovesForPoints();
+		final List<Position> uniqueStartingPoints = getUniqueSolutionStartingPoints();
+		try (SolutionWriter writer = new SolutionWriter(file, boardWidth, boardHeight)) {
+			streamSolutionsFromPositions(uniqueStartingPoints, solutions -> solutions.forEach(writer), DEFAULT_BATCH_SIZE);
+		}
+		stopWatch.stop();
+		long duration = stopWatch.getTime();
+
+		logger.info("Wrote a total of {} solutions to {} in {} milliseconds ({}x{})", getSolutionCount(), file, duration, boardWidth, boardHeight);
+		logTaskTimings();
+	}
+
+	/**
+	 * Find all possible solutions for the board and store them in a
+	 * {@link SolutionStore} for querying them by their starting cell later.
+	 * The solutions are first counted to lay out the store, and then searched
+	 * again and added to the store as they are found.
+	 *
+	 * @param file the store file to create
+	 */
+	public void storeSolutions(final Path file) throws IOException {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		precalculateMovesForPoints();
+		final List<Position> uniqueStartingPoints = getUniqueSolutionStartingPoints();
+		countSolutionsFromPositions(uniqueStartingPoints);
+		final Map<Position, Long> counts = new HashMap<>(solutionsByStartingPoint);
+		solutionsByStartingPoint.clear();
+
+		try (SolutionStore store = SolutionStore.create(file, boardWidth, boardHeight, counts)) {
+			streamSolutionsFromPositions(uniqueStartingPoints, store::add);
+		}
+		stopWatch.stop();
+		long duration = stopWatch.getTime();
+
+		logger.info("Stored a total of {} solutions to {} in {} milliseconds ({}x{})", getSolutionCount(), file, duration, boardWidth, boardHeight);
 	}
 
+	/**
+	 * Continue counting the solutions from a checkpoint saved earlier by
+	 * {@link #countSolutions()}. The parts of the search already completed
+	 * according to the checkpoint are not searched again, and the progress is
+	 * saved to the same checkpoint file.
+	 *
+	 * @param checkpointFile the checkpoint file to resume from
+	 * @throws IllegalArgumentException if the checkpoint is for another board
+	 *                                  size, other move rules or other constraints
+	 */
+	public void resumeCountSolutions(final Path checkpointFile) {
+		final SearchCheckpoint loaded = SearchCheckpoint.load(checkpointFile);
+		if (loaded.boardWidth != boardWidth || loaded.boardHeight != boardHeight) {
+			throw new IllegalArgumentException("Checkpoint is for a " + loaded.boardWidth + "x" + loaded.boardHeight
+					+ " board, not " + boardWidth + "x" + boardHeight);
+		}
+		if (!loaded.isFor(moveRules, constraints)) {
+			throw new IllegalArgumentException("Checkpoint is for move rules " + loaded.moveRules + " and constraints ["
+					+ loaded.constraints + "], not " + moveRules + " and [" + (constraints != null ? constraints : "") + "]");
+		}
+
+		logger.info("Resuming from checkpoint {}", checkpointFile);
+		this.checkpoint = loaded;
+		this.checkpointFile = checkpointFile;
+		this.splitDepth = loaded.splitDepth;
+		countSolutions();
+	}
+
+	/**
+	 * Count all possible solutions for the board by distributing the search
+	 * to the {@link SearchWorker}s of the given queue directory, which may run
+	 * in other processes on the same host. The search from each unique
+	 * starting point is split into units fixing the first moves as set by
+	 * {@link #setSplitDepth(int)}, the units are written to the queue, and
+	 * the counts of the units are merged when the workers have searched all
+	 * of them. The units of workers that stop renewing their leases are
+	 * given to other workers. Only supported with the moves of the original
+	 * puzzle and without constraints.
+	 *
+	 * @param queueDirectory an empty or nonexistent directory for the queue
+	 * @throws IllegalStateException if the search of a unit fails on a worker,
+	 *                               or no unit is completed within the time
+	 *                               set by {@link #setWorkTimeout(Duration)}
+	 */
+	public void countSolutionsDistributed(final Path queueDirectory) {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		final WorkQueue queue = createWorkQueue(queueDirectory, WorkQueue.Mode.COUNT);
+		awaitWorkUnits(queue);
+		addSymmetricSolutionCounts(queue.getCounts());
+		queue.finish();
+		stopWatch.stop();
+
+		logger.info("Counted a total of {} solutions in {} units in {} milliseconds ({}x{})", getSolutionCount(),
+				queue.unitCount(), stopWatch.getTime(), boardWidth, boardHeight);
+	}
+
+	/**
+	 * Find all possible solutions for the board by distributing the search
+	 * like {@link #countSolutionsDistributed(Path)}, and write them to the
+	 * given file. Each worker writes the unique solutions of each unit to a
+	 * file of the unit, and the solutions deduced from them by mirroring and
+	 * rotating are written to the given file when all the units have been
+	 * searched. Not supported with {@link SearchEngine#MEET_IN_THE_MIDDLE},
+	 * which only counts the solutions.
+	 *
+	 * @param queueDirectory an empty or nonexistent directory for the queue
+	 * @param file           the file to write the solutions to, in the format read by {@link SolutionReader}
+	 */
+	public void writeSolutionsDistributed(final Path queueDirectory, final Path file) throws IOException {
+		final StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		final WorkQueue queue = createWorkQueue(queueDirectory, WorkQueue.Mode.SOLUTIONS);
+		awaitWorkUnits(queue);
+		try (SolutionWriter writer = new SolutionWriter(file, boardWidth, boardHeight)) {
+			for (Path unitFile : queue.getSolutionFiles()) {
+				try (SolutionReader reader = new SolutionReader(unitFile)) {
+					for (Solution unique = reader.read(); unique != null; unique = reader.read()) {
+						expandUniqueSolution(unique, writer);
+					}
+				}
+			}
+		}
+		addSymmetricSolutionCounts(queue.getCounts());
+		queue.finish();
+		stopWatch.stop();
+
+		logger.info("Wrote a total of {} solutions in {} units to {} in {} milliseconds ({}x{})", getSolutionCount(),
+				queue.unitCount(), file, stopWatch.getTime(), boardWidth, boardHeight);
+	}
+
+	private WorkQueue createWorkQueue(final Path queueDirectory, final WorkQueue.Mode mode) {
+		if (constraints != null || !moveRules.equals(MoveRules.DEFAULT)) {
+			throw new UnsupportedOperationException("Distributed search only supports the moves of the original puzzle without constraints");
+		}
+		if (mode == WorkQueue.Mode.SOLUTIONS && searchEngine == SearchEngine.MEET_IN_THE_MIDDLE) {
+			throw new UnsupportedOperationException("Meet-in-the-middle search only counts solutions");
+		}
+		precalculateMovesForPoints();
+		final List<WorkUnit> units = WorkUnit.split(getUniqueSolutionStartingPoints(), successors, splitDepth);
+		logger.info("Distributing the search in {} units to the workers of {}", units.size(), queueDirectory);
+		return WorkQueue.create(queueDirectory, boardWidth, boardHeight, searchEngine, mode, workLease, units);
+	}
+
+	/**
+	 * Waits for the workers to complete all the units of the queue, giving
+	 * the units of the workers that seem to be lost to the other workers. If
+	 * a unit fails or the workers take too long, the search is finished to
+	 * stop the workers, and given up.
+	 */
+	private void awaitWorkUnits(final WorkQueue queue) {
+		final long pollMillis = Math.max(10, Math.min(queue.lease.toMillis() / 4, 1000));
+		int completed = 0;
+		long lastCompletedMillis = System.currentTimeMillis();
+		while (completed < queue.unitCount()) {
+			try {
+				Thread.sleep(pollMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the workers", e);
+			}
+			final List<String> failures = queue.getFailures();
+			if (!failures.isEmpty()) {
+				queue.finish();
+				throw new IllegalStateException("Search of " + failures.size() + " units failed on the workers, e.g. " + failures.get(0));
+			}
+			queue.requeueExpired();
+			final int nowCompleted = queue.completedCount();
+			if (nowCompleted > completed) {
+				logger.debug("{} of {} units completed", nowCompleted, queue.unitCount());
+				lastCompletedMillis = System.currentTimeMillis();
+			} else if (workTimeout != null && System.currentTimeMillis() - lastCompletedMillis > workTimeout.toMillis()) {
+				queue.finish();
+				throw new IllegalStateException("No units completed in " + workTimeout + ", " + nowCompleted + " of "
+						+ queue.unitCount() + " units completed");
+			}
+			completed = nowCompleted;
+		}
+	}
+
+	/**
+	 * Returns all the solutions found by {@link #findSolutions()}. Only the
+	 * unique solutions found by the search are kept in memory, and the rest
+	 * are deduced from them when accessed.
+	 *
+	 * @return a read-only list of all the solutions
+	 */
 	public List<Solution> getSolutions() {
 		return solutions;
 	}
 
+	/**
+	 * Returns the number of solutions found or counted. Unlike the size of
+	 * {@link #getSolutions()}, this is available in both modes.
+	 *
+	 * @return the number of solutions for the whole board
+	 */
+	public long getSolutionCount() {
+		return solutionsByStartingPoint.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * Returns the share of the lookups to the transposition tables that found
+	 * a stored count, over all the counts made by this solver.
+	 */
+	public double getTranspositionTableHitRate() {
+		return transpositionTableLookups == 0 ? 0 : (double) transpositionTableHits / transpositionTableLookups;
+	}
+
+	/**
+	 * Returns the statistics of all the solutions, or null if they haven't
+	 * been collected.
+	 */
+	public SolutionStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Returns the time it took to search each subtree of the search, in the
+	 * order the searches finished.
+	 *
+	 * @return the timings of the search tasks
+	 */
+	public List<TaskTiming> getTaskTimings() {
+		return new ArrayList<>(taskTimings);
+	}
+
+	public Map<Position, Long> getSolutionsByStartingPoint() {
+		return solutionsByStartingPoint;
+	}
+
 	public static void main(String[] args) {
 		// the real board's size is 10x10 but currently the algorithm is fast
 		// enough up to a 5x5 board only
 		final PuzzleSolver solver = new PuzzleSolver(5);
+		solver.setProgressReporting(Duration.ofSeconds(10));
 		solver.findSolutions();
 		solver.logSolutionsByStartingPoint();
 	}
@@ -0,0 +1,266 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The progress of a long-running solution count, saved to a file so that the
+ * count can be resumed after the program has been stopped.
+ * <p>
+ * The progress is kept separately for each search task, i.e. for each
+ * starting point and the moves fixed for the task. A task is either complete,
+ * in which case its final count is stored, or in progress, in which case the
+ * moves of the path it was last searching and the number of solutions found
+ * before reaching that path are stored. As the search always attempts the
+ * moves in the same order, a task can be resumed by skipping all the moves
+ * before the stored path.
+ */
+public class SearchCheckpoint {
+	static final int DEFAULT_UPDATE_INTERVAL = 1 << 22;
+
+	/**
+	 * The version of the stored counts. Checkpoints saved before the search
+	 * broke all the symmetries of the board have no version, and their counts
+	 * can't be combined with the counts of the current search.
+	 */
+	static final int FORMAT_VERSION = 2;
+
+	private static final String FORMAT_VERSION_KEY = "formatVersion";
+	private static final String BOARD_WIDTH_KEY = "boardWidth";
+	private static final String BOARD_HEIGHT_KEY = "boardHeight";
+	private static final String SPLIT_DEPTH_KEY = "splitDepth";
+	private static final String MOVE_RULES_KEY = "moveRules";
+	private static final String CONSTRAINTS_KEY = "constraints";
+	private static final String TASK_KEY_PREFIX = "task.";
+	private static final String COMPLETE = "complete";
+	private static final String IN_PROGRESS = "inProgress";
+
+	public final int boardWidth;
+	public final int boardHeight;
+	public final int splitDepth;
+
+	/**
+	 * The move rules and the constraints of the count, as described by their
+	 * {@code toString}, the constraints being empty if there are none. The
+	 * counts are only valid for a search with the same rules and constraints.
+	 */
+	public final String moveRules;
+	public final String constraints;
+
+	/**
+	 * The number of search nodes visited between updating the progress of a task.
+	 */
+	final int updateInterval;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	public SearchCheckpoint(final int boardWidth, final int boardHeight, final int splitDepth) {
+		this(boardWidth, boardHeight, splitDepth, MoveRules.DEFAULT, null);
+	}
+
+	/**
+	 * @param moveRules   the move rules of the count
+	 * @param constraints the constraints of the count, or null if there are none
+	 */
+	public SearchCheckpoint(final int boardWidth, final int boardHeight, final int splitDepth, final MoveRules moveRules,
+							final PuzzleConstraints constraints) {
+		this(boardWidth, boardHeight, splitDepth, moveRules.toString(), constraints != null ? constraints.toString() : "",
+				DEFAULT_UPDATE_INTERVAL);
+	}
+
+	SearchCheckpoint(final int boardWidth, final int boardHeight, final int splitDepth, final int updateInterval) {
+		this(boardWidth, boardHeight, splitDepth, MoveRules.DEFAULT.toString(), "", updateInterval);
+	}
+
+	private SearchCheckpoint(final int boardWidth, final int boardHeight, final int splitDepth, final String moveRules,
+							 final String constraints, final int updateInterval) {
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.splitDepth = splitDepth;
+		this.moveRules = moveRules;
+		this.constraints = constraints;
+		this.updateInterval = updateInterval;
+	}
+
+	/**
+	 * Tells whether the counts of the checkpoint were made with the given move
+	 * rules and constraints.
+	 *
+	 * @param constraints the constraints, or null if there are none
+	 */
+	public boolean isFor(final MoveRules moveRules, final PuzzleConstraints constraints) {
+		return this.moveRules.equals(moveRules.toString())
+				&& this.constraints.equals(constraints != null ? constraints.toString() : "");
+	}
+
+	static String taskKey(final Position startPosition, final List<Move> movePrefix) {
+		return startPosition.col + "," + startPosition.row + "/" + movesToString(movePrefix);
+	}
+
+	static String movesToString(final List<Move> moves) {
+		return moves.stream().map(Move::name).collect(Collectors.joining(","));
+	}
+
+	static List<Move> movesFromString(final String moves) {
+		final List<Move> parsed = new ArrayList<>();
+		if (!moves.isEmpty()) {
+			for (String move : moves.split(",")) {
+				parsed.add(Move.valueOf(move));
+			}
+		}
+		return ImmutableList.copyOf(parsed);
+	}
+
+	static Position positionFromKey(final String key) {
+		final String[] coordinates = key.substring(0, key.indexOf('/')).split(",");
+		return new Position(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]));
+	}
+
+	/**
+	 * Returns the progress of a search task, creating an empty one for a task
+	 * that hasn't been started yet.
+	 */
+	public Entry entryFor(final Position startPosition, final List<Move> movePrefix) {
+		return entries.computeIfAbsent(taskKey(startPosition, movePrefix), key -> new Entry(startPosition));
+	}
+
+	/**
+	 * Writes the checkpoint to a file. The file is first written under a
+	 * temporary name and then renamed, so a crash while saving doesn't destroy
+	 * the previous checkpoint.
+	 *
+	 * @param file the checkpoint file
+	 */
+	public void save(final Path file) {
+		final Properties properties = new Properties();
+		properties.setProperty(FORMAT_VERSION_KEY, Integer.toString(FORMAT_VERSION));
+		properties.setProperty(BOARD_WIDTH_KEY, Integer.toString(boardWidth));
+		properties.setProperty(BOARD_HEIGHT_KEY, Integer.toString(boardHeight));
+		properties.setProperty(SPLIT_DEPTH_KEY, Integer.toString(splitDepth));
+		properties.setProperty(MOVE_RULES_KEY, moveRules);
+		properties.setProperty(CONSTRAINTS_KEY, constraints);
+		entries.forEach((key, entry) -> properties.setProperty(TASK_KEY_PREFIX + key, entry.toString()));
+
+		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+			properties.store(writer, "Number puzzle solver checkpoint");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		try {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads a checkpoint from a file.
+	 *
+	 * @param file the checkpoint file
+	 * @throws IllegalArgumentException if the checkpoint was saved in another
+	 *                                  format than the current one
+	 */
+	public static SearchCheckpoint load(final Path file) {
+		final Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		final String version = properties.getProperty(FORMAT_VERSION_KEY);
+		if (!Integer.toString(FORMAT_VERSION).equals(version)) {
+			throw new IllegalArgumentException("Checkpoint " + file + " has format version "
+					+ (version != null ? version : "1") + ", not " + FORMAT_VERSION + ", and can't be resumed");
+		}
+
+		final SearchCheckpoint checkpoint = new SearchCheckpoint(
+				Integer.parseInt(properties.getProperty(BOARD_WIDTH_KEY)),
+				Integer.parseInt(properties.getProperty(BOARD_HEIGHT_KEY)),
+				Integer.parseInt(properties.getProperty(SPLIT_DEPTH_KEY)),
+				properties.getProperty(MOVE_RULES_KEY),
+				properties.getProperty(CONSTRAINTS_KEY),
+				DEFAULT_UPDATE_INTERVAL);
+		for (String name : properties.stringPropertyNames()) {
+			if (name.startsWith(TASK_KEY_PREFIX)) {
+				final String key = name.substring(TASK_KEY_PREFIX.length());
+				checkpoint.entries.put(key, Entry.parse(positionFromKey(key), properties.getProperty(name)));
+			}
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * The progress of a single search task. Updated by the thread running
+	 * the task and read by the thread saving the checkpoint.
+	 */
+	public static class Entry {
+		private final Position startPosition;
+		private boolean complete;
+		private List<Move> path;
+		private SolutionCount count;
+
+		private Entry(final Position startPosition) {
+			this.startPosition = startPosition;
+			this.path = ImmutableList.of();
+			this.count = new SolutionCount(startPosition);
+		}
+
+		/**
+		 * Stores the path the search is about to continue from and the number
+		 * of solutions found before it.
+		 */
+		synchronized void update(final List<Move> path, final SolutionCount count) {
+			this.path = ImmutableList.copyOf(path);
+			this.count = count.copy();
+		}
+
+		synchronized void complete(final SolutionCount count) {
+			this.path = ImmutableList.of();
+			this.count = count.copy();
+			this.complete = true;
+		}
+
+		public synchronized boolean isComplete() {
+			return complete;
+		}
+
+		public synchronized List<Move> getPath() {
+			return path;
+		}
+
+		public synchronized SolutionCount getCount() {
+			return count.copy();
+		}
+
+		private static Entry parse(final Position startPosition, final String value) {
+			final String[] fields = value.split(";", -1);
+			final Entry entry = new Entry(startPosition);
+			entry.complete = COMPLETE.equals(fields[0]);
+			entry.count = SolutionCount.parse(startPosition, fields[1]);
+			entry.path = movesFromString(fields[2]);
+			return entry;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return (complete ? COMPLETE : IN_PROGRESS) + ";" + count.toCountsString() + ";" + movesToString(path);
+		}
+	}
+}
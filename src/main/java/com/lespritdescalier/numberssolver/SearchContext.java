@@ -0,0 +1,220 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * The settings and shared state of a single search, passed to all the tasks
+ * of the search.
+ */
+class SearchContext {
+	final SearchEngine searchEngine;
+	final SuccessorTable successors;
+
+	/**
+	 * The second halves of the solutions shared by the solvers of a
+	 * {@link SearchEngine#MEET_IN_THE_MIDDLE} search, or null for the other
+	 * engines.
+	 */
+	private final MeetInTheMiddleSolver.SecondHalves secondHalves;
+
+	/**
+	 * The number of moves after which the search from a starting point is no
+	 * longer split into separate tasks.
+	 */
+	final int splitDepth;
+
+	final Queue<TaskTiming> taskTimings;
+
+	/**
+	 * The progress metrics of the search, or null if not collected.
+	 */
+	final SearchMetrics metrics;
+
+	/**
+	 * The number of states stored in each transposition table, or zero if the
+	 * counts of the subtrees aren't stored.
+	 */
+	final int transpositionTableSize;
+
+	/**
+	 * The most transposition tables created for the search, one for each
+	 * subtree searched at a time.
+	 */
+	private final int maxTranspositionTables;
+
+	/**
+	 * The numbers fixed to given cells, or null if the search is unconstrained.
+	 * A constrained search always uses {@link SolverForStartingPoint}.
+	 */
+	final PuzzleConstraints constraints;
+
+	/**
+	 * The transposition tables not used by any subtree at the moment. A task
+	 * borrows a table for searching its subtree and then returns it, so the
+	 * tables can be used without synchronization. The tables are lent instead
+	 * of kept per thread, as with {@link ExecutionStrategy#VIRTUAL_THREADS}
+	 * every subtree is searched by a thread of its own. All the created
+	 * tables are also kept in {@link #transpositionTables} for reporting
+	 * their hit rate.
+	 */
+	/**
+	 * Set when the search has to stop early, e.g. once enough solutions have
+	 * been found. Checked by the solvers that can stop in the middle of their
+	 * subtree.
+	 */
+	private volatile boolean stopped;
+
+	private final Deque<TranspositionTable> idleTranspositionTables = new ArrayDeque<>();
+	private final List<TranspositionTable> transpositionTables = new ArrayList<>();
+
+	/**
+	 * @param parallelism the number of subtrees searched at a time, and thus
+	 *                    the number of transposition tables created at most
+	 */
+	SearchContext(final SearchEngine searchEngine, final SuccessorTable successors,
+				  final int splitDepth, final Queue<TaskTiming> taskTimings, final SearchMetrics metrics,
+				  final int transpositionTableSize, final int parallelism, final PuzzleConstraints constraints) {
+		this.searchEngine = searchEngine;
+		this.successors = successors;
+		this.splitDepth = splitDepth;
+		this.taskTimings = taskTimings;
+		this.metrics = metrics;
+		this.transpositionTableSize = transpositionTableSize;
+		this.maxTranspositionTables = parallelism;
+		this.constraints = constraints;
+		secondHalves = searchEngine == SearchEngine.MEET_IN_THE_MIDDLE && constraints == null
+				? MeetInTheMiddleSolver.enumerateSecondHalves(successors)
+				: null;
+	}
+
+	/**
+	 * Starts collecting the progress metrics, if they're collected.
+	 */
+	void start() {
+		if (metrics != null) {
+			metrics.start();
+		}
+	}
+
+	/**
+	 * Stops collecting the progress metrics, if they're collected.
+	 */
+	void finish() {
+		if (metrics != null) {
+			metrics.stop();
+		}
+	}
+
+	/**
+	 * Tells the solvers of the search to stop.
+	 */
+	void stop() {
+		stopped = true;
+	}
+
+	boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Creates a solver for the subtree of the search starting with the given moves.
+	 */
+	StartingPointSolver createSolver(final Position startPosition, final List<Move> movePrefix) {
+		final StartingPointSolver solver;
+		if (constraints != null) {
+			solver = new SolverForStartingPoint(startPosition, successors, movePrefix, constraints);
+		} else if (secondHalves != null) {
+			solver = new MeetInTheMiddleSolver(startPosition, successors, movePrefix, secondHalves);
+		} else {
+			solver = searchEngine.createSolver(startPosition, successors, movePrefix);
+		}
+		return configure(solver, startPosition);
+	}
+
+	/**
+	 * Creates a solver for the subtree of the search starting with the given
+	 * moves that attempts the moves by Warnsdorff's rule, for finding the
+	 * first solutions quickly whatever the engine of the search.
+	 */
+	StartingPointSolver createWarnsdorffSolver(final Position startPosition, final List<Move> movePrefix) {
+		return configure(new WarnsdorffSolverForStartingPoint(startPosition, successors, movePrefix, constraints), startPosition);
+	}
+
+	private StartingPointSolver configure(final StartingPointSolver solver, final Position startPosition) {
+		if (metrics != null) {
+			solver.setProgress(metrics.progressFor(startPosition));
+		}
+		solver.setStopCondition(this::isStopped);
+		return solver;
+	}
+
+	/**
+	 * Lends a transposition table for searching a subtree, creating a new one
+	 * if all the tables are in use. If as many tables as there are subtrees
+	 * searched at a time are already in use, e.g. because a virtual thread
+	 * searching a subtree has been unmounted, the subtree is searched
+	 * without a table instead of allocating another one.
+	 *
+	 * @return the table to give back with {@link #returnTranspositionTable},
+	 * or null if the subtree is searched without a table
+	 */
+	synchronized TranspositionTable borrowTranspositionTable() {
+		if (transpositionTableSize == 0) {
+			return null;
+		}
+		if (!idleTranspositionTables.isEmpty()) {
+			return idleTranspositionTables.pop();
+		}
+		if (transpositionTables.size() >= maxTranspositionTables) {
+			return null;
+		}
+		final TranspositionTable table = new TranspositionTable(transpositionTableSize);
+		transpositionTables.add(table);
+		return table;
+	}
+
+	/**
+	 * Gives back a table lent by {@link #borrowTranspositionTable()} once the
+	 * search of the subtree has finished.
+	 *
+	 * @param table the lent table, or null if none was lent
+	 */
+	synchronized void returnTranspositionTable(final TranspositionTable table) {
+		if (table != null) {
+			idleTranspositionTables.push(table);
+		}
+	}
+
+	/**
+	 * Returns the symmetries of the board, other than the identity, that keep
+	 * the given starting cell in place and map the solutions of the search to
+	 * each other, as tracked by {@link SymmetryBreaker}.
+	 */
+	int stabilizer(final Position startPosition) {
+		if (constraints != null) {
+			return SymmetryBreaker.stabilizer(startPosition, successors.boardWidth, successors.boardHeight,
+					constraints.preservedOf(successors.symmetries));
+		}
+		return SymmetryBreaker.stabilizer(startPosition, successors);
+	}
+
+	/**
+	 * Returns the number of lookups made to all the transposition tables of
+	 * the search so far.
+	 */
+	synchronized long transpositionTableLookups() {
+		return transpositionTables.stream().mapToLong(TranspositionTable::getLookups).sum();
+	}
+
+	/**
+	 * Returns the number of lookups to all the transposition tables of the
+	 * search that found a stored count.
+	 */
+	synchronized long transpositionTableHits() {
+		return transpositionTables.stream().mapToLong(TranspositionTable::getHits).sum();
+	}
+}
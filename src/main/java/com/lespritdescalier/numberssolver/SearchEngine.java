@@ -0,0 +1,66 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The available implementations of the depth-first search run separately from
+ * each unique starting point.
+ */
+public enum SearchEngine {
+	/**
+	 * The original search storing its state in a {@link Board}.
+	 */
+	BOARD {
+		@Override
+		StartingPointSolver createSolver(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+			return new SolverForStartingPoint(startPosition, successors, movePrefix);
+		}
+	},
+
+	/**
+	 * A search storing the occupied cells as a bitmask. Supports boards of up
+	 * to 128 cells.
+	 */
+	BITBOARD {
+		@Override
+		StartingPointSolver createSolver(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+			return new BitboardSolverForStartingPoint(startPosition, successors, movePrefix);
+		}
+	},
+
+	/**
+	 * The bitmask search as a loop over an explicit stack instead of
+	 * recursion. Supports boards of up to 128 cells.
+	 */
+	ITERATIVE {
+		@Override
+		StartingPointSolver createSolver(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+			return new IterativeSolverForStartingPoint(startPosition, successors, movePrefix);
+		}
+	},
+
+	/**
+	 * An experimental search joining the first halves of the solutions from
+	 * the starting point with the second halves enumerated for the whole board.
+	 * Only counts the solutions. Supports boards of up to 64 cells. A solver
+	 * created here enumerates the second halves for itself, while the solvers
+	 * of a search share the second halves enumerated by its {@link SearchContext}.
+	 */
+	MEET_IN_THE_MIDDLE {
+		@Override
+		StartingPointSolver createSolver(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+			return new MeetInTheMiddleSolver(startPosition, successors, movePrefix);
+		}
+	};
+
+	StartingPointSolver createSolver(final Position startPosition, final SuccessorTable successors) {
+		return createSolver(startPosition, successors, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves.
+	 */
+	abstract StartingPointSolver createSolver(Position startPosition, SuccessorTable successors, List<Move> movePrefix);
+}
@@ -0,0 +1,99 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Runs the search tasks of each starting point by an {@link ExecutionStrategy}.
+ * A task submitted to the executor completes with the same result whichever
+ * strategy is used.
+ */
+class SearchExecutor implements AutoCloseable {
+	private final ExecutionStrategy strategy;
+	private final ExecutorService executor;
+
+	/**
+	 * The futures of all the tasks and subtrees submitted, for cancelling them.
+	 */
+	private final List<CompletableFuture<?>> submitted = new ArrayList<>();
+
+	SearchExecutor(final ExecutionStrategy strategy, final int parallelism) {
+		this.strategy = strategy;
+		this.executor = strategy.createExecutor(parallelism);
+	}
+
+	/**
+	 * Starts running the search of a task, either as a single fork/join task
+	 * or as separate tasks searching each of its subtrees.
+	 *
+	 * @return the result of the task, completed when all of its subtrees have
+	 * been searched
+	 */
+	<R> CompletableFuture<R> submit(final SubtreeSearchTask<R> task) {
+		if (strategy.forksSubtasks()) {
+			return track(CompletableFuture.supplyAsync(task::invoke, executor));
+		}
+
+		final List<CompletableFuture<R>> subtrees = new ArrayList<>();
+		for (SubtreeSearchTask<R> subtree : task.subtreeTasks()) {
+			subtrees.add(track(CompletableFuture.supplyAsync(subtree::searchSubtree, executor)));
+		}
+		return CompletableFuture.allOf(subtrees.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			final List<R> results = new ArrayList<>();
+			subtrees.forEach(subtree -> results.add(subtree.join()));
+			return task.merge(results);
+		});
+	}
+
+	/**
+	 * Starts another stage processing the result of a task by the same
+	 * executor as soon as the task completes, while the other tasks are
+	 * still being searched.
+	 */
+	<R, T> CompletableFuture<T> thenApply(final CompletableFuture<R> result, final Function<? super R, ? extends T> stage) {
+		return result.thenApplyAsync(stage, executor);
+	}
+
+	private <R> CompletableFuture<R> track(final CompletableFuture<R> future) {
+		submitted.add(future);
+		return future;
+	}
+
+	/**
+	 * Stops the search after a task has failed: cancels the tasks not yet
+	 * started and interrupts the threads of the ones running, so that they
+	 * don't keep on waiting for e.g. a {@link SolutionSink} that is no longer
+	 * taking their solutions.
+	 */
+	void cancel() {
+		submitted.forEach(future -> future.cancel(true));
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Waits for the result of a submitted task, rethrowing any exception
+	 * thrown by the search as it is, like joining a fork/join task does.
+	 */
+	static <R> R join(final CompletableFuture<R> result) {
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+}
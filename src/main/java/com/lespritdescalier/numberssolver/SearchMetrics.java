@@ -0,0 +1,131 @@
+package com.lespritdescalier.numberssolver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The progress of a running search for each starting point, registered as
+ * JMX MBeans and logged periodically while the search is running.
+ * <p>
+ * The MBeans are registered under the domain of this package with the type
+ * {@code SearchProgress} and the starting point as the {@code start} key,
+ * e.g. {@code com.lespritdescalier.numberssolver:type=SearchProgress,start="(0,1)"}.
+ */
+class SearchMetrics {
+	static final String DOMAIN = SearchMetrics.class.getPackage().getName();
+
+	private final Logger logger = LogManager.getLogger(SearchMetrics.class);
+
+	private final Map<Position, SearchProgress> progressByStartingPoint = new LinkedHashMap<>();
+	private final List<ObjectName> registeredNames = new ArrayList<>();
+	private final Duration logInterval;
+	private ScheduledExecutorService summaryLogger;
+
+	/**
+	 * @param startingPoints the starting points of the search
+	 * @param logInterval    the time between logging the progress
+	 */
+	SearchMetrics(final List<Position> startingPoints, final Duration logInterval) {
+		this.logInterval = logInterval;
+		for (Position position : startingPoints) {
+			progressByStartingPoint.put(position, new SearchProgress(position));
+		}
+	}
+
+	SearchProgress progressFor(final Position startPosition) {
+		final SearchProgress progress = progressByStartingPoint.get(startPosition);
+		if (progress == null) {
+			throw new IllegalArgumentException("Not a starting point of the search: " + startPosition);
+		}
+		return progress;
+	}
+
+	static ObjectName objectName(final Position startPosition) {
+		try {
+			return new ObjectName(DOMAIN + ":type=SearchProgress,start=" + ObjectName.quote(startPosition.toString()));
+		} catch (MalformedObjectNameException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Registers the MBeans and starts logging the progress.
+	 */
+	void start() {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		progressByStartingPoint.forEach((position, progress) -> {
+			final ObjectName name = objectName(position);
+			try {
+				server.registerMBean(progress, name);
+				registeredNames.add(name);
+			} catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+				logger.warn("Cannot register search progress MBean {}", name, e);
+			}
+		});
+
+		summaryLogger = Executors.newSingleThreadScheduledExecutor();
+		final long intervalMillis = logInterval.toMillis();
+		summaryLogger.scheduleAtFixedRate(this::logSummary, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops logging the progress, logs the final progress and unregisters the MBeans.
+	 */
+	void stop() {
+		if (summaryLogger != null) {
+			summaryLogger.shutdownNow();
+		}
+		logSummary();
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (ObjectName name : registeredNames) {
+			try {
+				server.unregisterMBean(name);
+			} catch (InstanceNotFoundException | MBeanRegistrationException e) {
+				logger.warn("Cannot unregister search progress MBean {}", name, e);
+			}
+		}
+		registeredNames.clear();
+	}
+
+	long totalNodesVisited() {
+		return progressByStartingPoint.values().stream().mapToLong(SearchProgress::getNodesVisited).sum();
+	}
+
+	long totalSolutionsFound() {
+		return progressByStartingPoint.values().stream().mapToLong(SearchProgress::getSolutionsFound).sum();
+	}
+
+	private void logSummary() {
+		final StringBuilder sb = new StringBuilder();
+		long nodesPerSecond = 0;
+		int runningStartingPoints = 0;
+		for (SearchProgress progress : progressByStartingPoint.values()) {
+			sb.append("\n").append(progress);
+			if (progress.isStarted() && !progress.isFinished()) {
+				nodesPerSecond += progress.getNodesPerSecond();
+				runningStartingPoints++;
+			}
+		}
+
+		logger.info("Searched {} nodes and found {} unique solutions, {} starting points running at {} nodes/s:{}",
+				totalNodesVisited(), totalSolutionsFound(), runningStartingPoints, nodesPerSecond, sb);
+	}
+}
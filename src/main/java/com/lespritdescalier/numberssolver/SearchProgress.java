@@ -0,0 +1,106 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The progress of the search from a single starting point, shared by all the
+ * search tasks of the starting point.
+ * <p>
+ * The counters are striped so that the tasks running in parallel don't
+ * contend on them, and the solvers only add to them every now and then
+ * through a {@link ProgressRecorder} instead of for every visited node.
+ */
+public class SearchProgress implements SearchProgressMXBean {
+	private final Position startPosition;
+
+	private final LongAdder nodesVisited = new LongAdder();
+	private final LongAdder solutionsFound = new LongAdder();
+	private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+	private final AtomicInteger runningTasks = new AtomicInteger();
+
+	/**
+	 * When the first task of the starting point started and when the last one
+	 * finished, as given by {@link System#nanoTime()}, or zero if not yet.
+	 */
+	private volatile long startTime;
+	private volatile long finishTime;
+
+	SearchProgress(final Position startPosition) {
+		this.startPosition = startPosition;
+	}
+
+	void taskStarted() {
+		if (runningTasks.getAndIncrement() == 0 && startTime == 0) {
+			startTime = System.nanoTime();
+		}
+		finishTime = 0;
+	}
+
+	void taskFinished() {
+		if (runningTasks.decrementAndGet() == 0) {
+			finishTime = System.nanoTime();
+		}
+	}
+
+	void add(final long nodes, final long solutions, final int depth) {
+		nodesVisited.add(nodes);
+		solutionsFound.add(solutions);
+		maxDepth.accumulate(depth);
+	}
+
+	@Override
+	public String getStartPosition() {
+		return startPosition.toString();
+	}
+
+	@Override
+	public long getNodesVisited() {
+		return nodesVisited.sum();
+	}
+
+	@Override
+	public long getSolutionsFound() {
+		return solutionsFound.sum();
+	}
+
+	@Override
+	public int getMaxDepth() {
+		return (int) maxDepth.get();
+	}
+
+	@Override
+	public int getRunningTasks() {
+		return runningTasks.get();
+	}
+
+	@Override
+	public boolean isFinished() {
+		return finishTime != 0 && runningTasks.get() == 0;
+	}
+
+	/**
+	 * Tells whether any task of the starting point has started.
+	 */
+	boolean isStarted() {
+		return startTime != 0;
+	}
+
+	@Override
+	public long getNodesPerSecond() {
+		if (startTime == 0) {
+			return 0;
+		}
+		final long endTime = isFinished() ? finishTime : System.nanoTime();
+		final long elapsedNanos = Math.max(endTime - startTime, 1);
+		return (long) (getNodesVisited() * 1e9 / elapsedNanos);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d nodes, %d solutions, max depth %d, %d nodes/s, %s", startPosition,
+				getNodesVisited(), getSolutionsFound(), getMaxDepth(), getNodesPerSecond(),
+				isFinished() ? "finished" : isStarted() ? getRunningTasks() + " tasks running" : "not started");
+	}
+}
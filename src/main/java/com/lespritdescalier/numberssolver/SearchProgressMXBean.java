@@ -0,0 +1,35 @@
+package com.lespritdescalier.numberssolver;
+
+/**
+ * The progress of the search from a single starting point, as exposed
+ * through JMX.
+ */
+public interface SearchProgressMXBean {
+	String getStartPosition();
+
+	/**
+	 * Returns the number of search nodes visited so far, i.e. the number of
+	 * partial paths the search has attempted to continue.
+	 */
+	long getNodesVisited();
+
+	long getSolutionsFound();
+
+	/**
+	 * Returns the greatest number of moves any partial path has had so far.
+	 */
+	int getMaxDepth();
+
+	/**
+	 * Returns the number of search tasks of the starting point currently running.
+	 */
+	int getRunningTasks();
+
+	boolean isFinished();
+
+	/**
+	 * Returns the average number of nodes visited per second since the search
+	 * from the starting point started.
+	 */
+	long getNodesPerSecond();
+}
@@ -0,0 +1,169 @@
+package com.lespritdescalier.numberssolver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A worker of a distributed search, searching the units of a
+ * {@link WorkQueue} created by a coordinator, e.g.
+ * {@link PuzzleSolver#countSolutionsDistributed(Path)}. Any number of workers
+ * can be started on the same host, before or after the coordinator, each with
+ * as many threads as there are cores to spare. A worker stops when the
+ * coordinator has marked the search finished. A unit whose search fails is
+ * recorded as failed in the queue, for the coordinator to give up the search,
+ * and the thread goes on with the other units, unless the search failed with
+ * an {@link Error}.
+ * <p>
+ * To start a worker from the command line:
+ * <pre>
+ *     java -cp numberssolver.jar:... com.lespritdescalier.numberssolver.SearchWorker queueDirectory [threads]
+ * </pre>
+ */
+public class SearchWorker implements Runnable {
+	/**
+	 * The time between checking for new units when none are pending.
+	 */
+	static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+	private final Logger logger = LogManager.getLogger(SearchWorker.class);
+
+	private final Path queueDirectory;
+	private final int threads;
+
+	/**
+	 * Identifies the files this worker writes from the files of the other
+	 * workers searching the same unit.
+	 */
+	private final String workerId;
+
+	private final Set<WorkUnit> activeUnits = ConcurrentHashMap.newKeySet();
+
+	public SearchWorker(final Path queueDirectory, final int threads) {
+		this.queueDirectory = queueDirectory;
+		this.threads = threads;
+		this.workerId = ManagementFactory.getRuntimeMXBean().getName().replaceAll("\\W", "_") + "-" + System.identityHashCode(this);
+	}
+
+	/**
+	 * Searches the units of the queue until the coordinator has finished the
+	 * search, waiting for the queue to be created first if necessary.
+	 */
+	@Override
+	public void run() {
+		final WorkQueue queue = awaitQueue();
+		final SuccessorTable successors = SuccessorTable.compile(MoveRules.DEFAULT, queue.boardWidth, queue.boardHeight);
+		// The units are already split, and the context only creates the solvers of the units
+		final SearchContext context = new SearchContext(queue.searchEngine, successors, 0, new ConcurrentLinkedQueue<>(),
+				null, 0, threads, null);
+		logger.info("Worker {} searching {} with {} threads", workerId, queueDirectory, threads);
+
+		final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor();
+		final long renewMillis = Math.max(1, queue.lease.toMillis() / 3);
+		leaseRenewer.scheduleWithFixedDelay(() -> activeUnits.forEach(queue::renew), renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+
+		final Thread[] searchThreads = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			searchThreads[i] = new Thread(() -> searchUnits(queue, context), "search-worker-" + i);
+			searchThreads[i].start();
+		}
+		try {
+			for (Thread thread : searchThreads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			leaseRenewer.shutdownNow();
+		}
+	}
+
+	private WorkQueue awaitQueue() {
+		while (true) {
+			final Optional<WorkQueue> queue = WorkQueue.open(queueDirectory);
+			if (queue.isPresent()) {
+				return queue.get();
+			}
+			sleep();
+		}
+	}
+
+	private void searchUnits(final WorkQueue queue, final SearchContext context) {
+		while (!queue.isFinished()) {
+			final Optional<WorkUnit> claimed = queue.claim();
+			if (claimed.isEmpty()) {
+				sleep();
+				continue;
+			}
+
+			final WorkUnit unit = claimed.get();
+			activeUnits.add(unit);
+			try {
+				search(queue, context, unit);
+			} catch (RuntimeException | Error e) {
+				logger.error("Search of {} failed", unit, e);
+				queue.fail(unit, e);
+				if (e instanceof Error) {
+					// e.g. running out of memory, which the thread can't recover from
+					throw (Error) e;
+				}
+			} finally {
+				activeUnits.remove(unit);
+			}
+		}
+	}
+
+	void search(final WorkQueue queue, final SearchContext context, final WorkUnit unit) {
+		logger.debug("Searching {}", unit);
+		final StartingPointSolver solver = context.createSolver(unit.startPosition, unit.movePrefix);
+		if (queue.mode == WorkQueue.Mode.COUNT) {
+			queue.complete(unit, solver.countSolutions(), null);
+			return;
+		}
+
+		final Path solutionFile = queue.solutionFileFor(unit, workerId);
+		final SolutionCount count = new SolutionCount(unit.startPosition);
+		try (SolutionWriter writer = new SolutionWriter(solutionFile, queue.boardWidth, queue.boardHeight)) {
+			solver.searchSolutions(solution -> {
+				writer.accept(solution);
+				if (!solution.moves.isEmpty()) {
+					count.increment(solution.moves.get(0));
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		queue.complete(unit, count, solutionFile);
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(POLL_INTERVAL.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for work", e);
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: SearchWorker queueDirectory [threads]");
+			System.exit(1);
+		}
+		final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		new SearchWorker(Paths.get(args[0]), threads).run();
+	}
+}
@@ -1,18 +1,77 @@
 package com.lespritdescalier.numberssolver;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.ImmutableList;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
+/**
+ * A path covering the whole board. The moves are stored packed as the
+ * ordinals of the moves, one byte per move, and {@link #moves} is a read-only
+ * view of them.
+ */
 public class Solution {
+	private static final Move[] MOVES = Move.values();
+
 	public final Position startPosition;
 	public final List<Move> moves;
 
+	private final byte[] packedMoves;
+
 	public Solution(final Position startPosition, final List<Move> moves) {
+		this(startPosition, pack(moves));
+	}
+
+	private Solution(final Position startPosition, final byte[] packedMoves) {
 		this.startPosition = startPosition;
-		this.moves = ImmutableList.copyOf(moves);
+		this.packedMoves = packedMoves;
+		this.moves = new PackedMoveList(packedMoves);
+	}
+
+	/**
+	 * Creates a solution from the first moves of an array of move ordinals,
+	 * such as the move stack of a search. The moves are copied, so the array
+	 * can be reused afterwards.
+	 *
+	 * @param startPosition the cell the solution starts from
+	 * @param moveOrdinals  the ordinals of the moves of the solution, in order
+	 * @param length        the number of moves in the solution
+	 */
+	static Solution fromPackedMoves(final Position startPosition, final byte[] moveOrdinals, final int length) {
+		return new Solution(startPosition, Arrays.copyOf(moveOrdinals, length));
+	}
+
+	private static byte[] pack(final List<Move> moves) {
+		final byte[] packed = new byte[moves.size()];
+		int i = 0;
+		for (Move move : moves) {
+			packed[i++] = (byte) move.ordinal();
+		}
+		return packed;
+	}
+
+	/**
+	 * A read-only list view of packed moves.
+	 */
+	private static class PackedMoveList extends AbstractList<Move> implements RandomAccess {
+		private final byte[] packedMoves;
+
+		PackedMoveList(final byte[] packedMoves) {
+			this.packedMoves = packedMoves;
+		}
+
+		@Override
+		public Move get(final int index) {
+			return MOVES[packedMoves[index]];
+		}
+
+		@Override
+		public int size() {
+			return packedMoves.length;
+		}
 	}
 
 	@Override
@@ -29,7 +88,7 @@ public class Solution {
 
 	@Override
 	public int hashCode() {
-		return Objects.hashCode(startPosition, moves);
+		return 31 * startPosition.hashCode() + Arrays.hashCode(packedMoves);
 	}
 
 	@Override
@@ -47,7 +106,7 @@ public class Solution {
 		}
 
 		Solution other = (Solution) obj;
-		return Objects.equal(startPosition, other.startPosition) && Objects.equal(moves, other.moves);
+		return Objects.equal(startPosition, other.startPosition) && Arrays.equals(packedMoves, other.packedMoves);
 	}
 
 	public Solution rotate(int boardSize) {
@@ -0,0 +1,151 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects the solutions found by the tasks of a search into batches and
+ * passes the batches to a {@link SolutionSink} from a thread of its own.
+ * <p>
+ * Each task fills a {@link Batch} of its own, so the search threads only
+ * synchronize when handing over a full batch. The batches waiting for the
+ * sink are kept in a bounded queue, and a task handing over a batch waits
+ * while the queue is full.
+ * <p>
+ * If the sink throws an exception, the rest of the batches are discarded and
+ * the exception is rethrown by {@link #close()}. Handing over a batch after
+ * the batcher has been closed, e.g. by a task still running after another
+ * task has failed, fails instead of waiting for a sink that no longer takes
+ * the batches.
+ */
+class SolutionBatcher implements AutoCloseable {
+	/**
+	 * Marks the end of the batches in the queue.
+	 */
+	private static final List<Solution> END = new ArrayList<>(0);
+
+	/**
+	 * The time between checking whether the batcher has been closed while
+	 * waiting for room in the queue.
+	 */
+	private static final long CLOSED_CHECK_MILLIS = 100;
+
+	private final SolutionSink sink;
+	private final int batchSize;
+	private final BlockingQueue<List<Solution>> pendingBatches;
+	private final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor();
+	private final Future<?> delivery;
+	private volatile boolean closed;
+
+	/**
+	 * @param sink              the receiver of the batches
+	 * @param batchSize         the number of solutions in each full batch
+	 * @param maxPendingBatches the number of batches the search can get ahead of the sink
+	 */
+	SolutionBatcher(final SolutionSink sink, final int batchSize, final int maxPendingBatches) {
+		this.sink = sink;
+		this.batchSize = batchSize;
+		pendingBatches = new ArrayBlockingQueue<>(maxPendingBatches);
+		delivery = deliveryExecutor.submit(() -> {
+			deliverBatches();
+			return null;
+		});
+	}
+
+	private void deliverBatches() throws InterruptedException {
+		RuntimeException failure = null;
+		for (List<Solution> batch = pendingBatches.take(); batch != END; batch = pendingBatches.take()) {
+			// Keep taking the batches after a failure, so the search doesn't wait for the sink forever
+			if (failure == null) {
+				try {
+					sink.accept(batch);
+				} catch (RuntimeException e) {
+					failure = e;
+				}
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+		sink.complete();
+	}
+
+	private void submit(final List<Solution> batch) {
+		try {
+			do {
+				if (closed) {
+					throw new IllegalStateException("Solution batcher has been closed");
+				}
+			} while (!pendingBatches.offer(batch, CLOSED_CHECK_MILLIS, TimeUnit.MILLISECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the solution sink", e);
+		}
+	}
+
+	/**
+	 * Creates a batch for a single task to add its solutions to.
+	 */
+	Batch newBatch() {
+		return new Batch();
+	}
+
+	/**
+	 * Waits until all the batches handed over have been passed to the sink.
+	 * Must be called after all the tasks have flushed their batches, as any
+	 * batches handed over later are rejected.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			pendingBatches.put(END);
+			delivery.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the solution sink", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			deliveryExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * The solutions found by a single task since its last full batch. Used by
+	 * one thread only.
+	 */
+	class Batch implements Consumer<Solution> {
+		private List<Solution> solutions = new ArrayList<>(batchSize);
+
+		@Override
+		public void accept(final Solution solution) {
+			solutions.add(solution);
+			if (solutions.size() == batchSize) {
+				flush();
+			}
+		}
+
+		/**
+		 * Hands over the solutions added so far, if any.
+		 */
+		void flush() {
+			if (!solutions.isEmpty()) {
+				submit(solutions);
+				solutions = new ArrayList<>(batchSize);
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * The number of solutions found from a single starting point, grouped by the
+ * first move of the solutions.
+ */
+public class SolutionCount {
+	public final Position startPosition;
+	private final long[] countsByFirstMove = new long[Move.values().length];
+
+	public SolutionCount(final Position startPosition) {
+		this.startPosition = startPosition;
+	}
+
+	void increment(final Move firstMove) {
+		countsByFirstMove[firstMove.ordinal()]++;
+	}
+
+	void add(final Move firstMove, final long count) {
+		countsByFirstMove[firstMove.ordinal()] += count;
+	}
+
+	/**
+	 * Adds the counts of another part of the search from the same starting point.
+	 */
+	void add(final SolutionCount other) {
+		for (int i = 0; i < countsByFirstMove.length; i++) {
+			countsByFirstMove[i] += other.countsByFirstMove[i];
+		}
+	}
+
+	SolutionCount copy() {
+		final SolutionCount copy = new SolutionCount(startPosition);
+		copy.add(this);
+		return copy;
+	}
+
+	/**
+	 * Returns the counts by first move as a comma-separated list, in the
+	 * order of the moves.
+	 */
+	String toCountsString() {
+		return Arrays.stream(countsByFirstMove).mapToObj(Long::toString).collect(Collectors.joining(","));
+	}
+
+	static SolutionCount parse(final Position startPosition, final String counts) {
+		final SolutionCount parsed = new SolutionCount(startPosition);
+		final String[] values = counts.split(",");
+		for (int i = 0; i < values.length; i++) {
+			parsed.countsByFirstMove[i] = Long.parseLong(values[i]);
+		}
+		return parsed;
+	}
+
+	public long get(final Move firstMove) {
+		return countsByFirstMove[firstMove.ordinal()];
+	}
+
+	public long total() {
+		long total = 0;
+		for (long count : countsByFirstMove) {
+			total += count;
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d", startPosition, total());
+	}
+}
@@ -0,0 +1,92 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary encoding of solutions for a board of given size. Each
+ * solution is encoded as a fixed-length record: the index of the starting
+ * cell (row * width + col) as a single byte, followed by the moves packed
+ * three bits per move (the ordinal of the move) starting from the lowest
+ * bits of the first byte.
+ * <p>
+ * As the starting cell must fit in a byte, boards of up to 256 cells are
+ * supported.
+ */
+public class SolutionEncoding {
+	static final int MAX_CELL_COUNT = 256;
+	private static final int BITS_PER_MOVE = 3;
+	private static final int MOVE_MASK = (1 << BITS_PER_MOVE) - 1;
+	private static final Move[] MOVES = Move.values();
+
+	public final int boardWidth;
+	public final int boardHeight;
+	public final int moveCount;
+	public final int recordLength;
+
+	public SolutionEncoding(final int boardWidth, final int boardHeight) {
+		if (boardWidth * boardHeight > MAX_CELL_COUNT) {
+			throw new IllegalArgumentException("Solution encoding supports boards of up to " + MAX_CELL_COUNT + " cells");
+		}
+
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.moveCount = boardWidth * boardHeight - 1;
+		this.recordLength = 1 + (moveCount * BITS_PER_MOVE + Byte.SIZE - 1) / Byte.SIZE;
+	}
+
+	/**
+	 * Encodes a solution into the given buffer.
+	 *
+	 * @param solution the solution to encode
+	 * @param record   the buffer to write to, at least {@link #recordLength} bytes long
+	 * @param offset   the index of the first byte to write
+	 */
+	public void encode(final Solution solution, final byte[] record, final int offset) {
+		record[offset] = (byte) (solution.startPosition.row * boardWidth + solution.startPosition.col);
+
+		int bits = 0;
+		int bitCount = 0;
+		int index = offset + 1;
+		for (Move move : solution.moves) {
+			bits |= move.ordinal() << bitCount;
+			bitCount += BITS_PER_MOVE;
+			if (bitCount >= Byte.SIZE) {
+				record[index++] = (byte) bits;
+				bits >>>= Byte.SIZE;
+				bitCount -= Byte.SIZE;
+			}
+		}
+		if (bitCount > 0) {
+			record[index] = (byte) bits;
+		}
+	}
+
+	/**
+	 * Decodes a solution from the given buffer.
+	 *
+	 * @param record the buffer to read from
+	 * @param offset the index of the first byte of the record
+	 * @return the decoded solution
+	 */
+	public Solution decode(final byte[] record, final int offset) {
+		final int startCell = Byte.toUnsignedInt(record[offset]);
+		final Position startPosition = new Position(startCell % boardWidth, startCell / boardWidth);
+
+		final List<Move> moves = new ArrayList<>(moveCount);
+		int bits = 0;
+		int bitCount = 0;
+		int index = offset + 1;
+		for (int i = 0; i < moveCount; i++) {
+			if (bitCount < BITS_PER_MOVE) {
+				bits |= Byte.toUnsignedInt(record[index++]) << bitCount;
+				bitCount += Byte.SIZE;
+			}
+			moves.add(MOVES[bits & MOVE_MASK]);
+			bits >>>= BITS_PER_MOVE;
+			bitCount -= BITS_PER_MOVE;
+		}
+
+		return new Solution(startPosition, moves);
+	}
+}
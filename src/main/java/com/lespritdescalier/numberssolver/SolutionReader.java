@@ -0,0 +1,63 @@
+package com.lespritdescalier.numberssolver;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads solutions from a file written by {@link SolutionWriter}.
+ */
+public class SolutionReader implements Closeable {
+	private final SolutionEncoding encoding;
+	private final DataInputStream input;
+	private final byte[] record;
+
+	public SolutionReader(final Path file) throws IOException {
+		input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+		if (input.readInt() != SolutionWriter.MAGIC) {
+			input.close();
+			throw new IOException("Not a solution file: " + file);
+		}
+		encoding = new SolutionEncoding(input.readUnsignedByte(), input.readUnsignedByte());
+		record = new byte[encoding.recordLength];
+	}
+
+	public SolutionEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Reads the next solution from the file.
+	 *
+	 * @return the next solution, or null if there are no more solutions
+	 */
+	public Solution read() throws IOException {
+		try {
+			input.readFully(record);
+		} catch (EOFException e) {
+			return null;
+		}
+		return encoding.decode(record, 0);
+	}
+
+	public static List<Solution> readAll(final Path file) throws IOException {
+		final List<Solution> solutions = new ArrayList<>();
+		try (SolutionReader reader = new SolutionReader(file)) {
+			for (Solution solution = reader.read(); solution != null; solution = reader.read()) {
+				solutions.add(solution);
+			}
+		}
+		return solutions;
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+}
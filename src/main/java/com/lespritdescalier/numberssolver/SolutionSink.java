@@ -0,0 +1,30 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.List;
+
+/**
+ * Receives the solutions of a search in batches while the search is still
+ * running, e.g. for writing them out or querying them without keeping all
+ * the solutions in memory.
+ * <p>
+ * The batches are passed to the sink from a single thread, one batch at a
+ * time, so a sink doesn't need to be thread-safe. The search only gets ahead
+ * of the sink by a limited number of batches: when the sink can't keep up,
+ * the search waits for it.
+ */
+@FunctionalInterface
+public interface SolutionSink {
+	/**
+	 * Receives the next batch of solutions. The batches are in no particular
+	 * order of the solutions.
+	 *
+	 * @param solutions the solutions of the batch, owned by the sink from now on
+	 */
+	void accept(List<Solution> solutions);
+
+	/**
+	 * Called once after the last batch, when the search is complete.
+	 */
+	default void complete() {
+	}
+}
@@ -0,0 +1,159 @@
+package com.lespritdescalier.numberssolver;
+
+/**
+ * Distributions of the solutions of a board, accumulated one solution at a
+ * time without keeping the solutions: the number of solutions by starting and
+ * ending cell, by first move, and by the cell visited at each step of the
+ * solution (a heatmap of the order the cells are visited in).
+ * <p>
+ * The statistics are kept in primitive arrays. Each search task accumulates
+ * its own statistics, which are merged when the tasks are complete. The
+ * statistics of the unique solutions found by the search are then turned into
+ * the statistics of all the solutions of the board with
+ * {@link #applySymmetries(BoardSymmetry)}, without deducing the solutions
+ * themselves.
+ */
+public class SolutionStatistics {
+	private static final Move[] MOVES = Move.values();
+
+	public final MoveRules rules;
+	public final int boardWidth;
+	public final int boardHeight;
+	private final int cellCount;
+
+	/**
+	 * The change of the cell index made by each move, indexed by the ordinal
+	 * of the move.
+	 */
+	private final int[] cellChanges = new int[MOVES.length];
+
+	private long total;
+
+	/**
+	 * The number of solutions by starting cell and ending cell, indexed by
+	 * start * cellCount + end.
+	 */
+	private final long[] countsByStartAndEnd;
+
+	private final long[] countsByFirstMove = new long[MOVES.length];
+
+	/**
+	 * The number of solutions visiting each cell at each step, indexed by
+	 * step * cellCount + cell. The starting cell is visited at step 0.
+	 */
+	private final long[] visitsByStep;
+
+	public SolutionStatistics(final int boardWidth, final int boardHeight) {
+		this(MoveRules.DEFAULT, boardWidth, boardHeight);
+	}
+
+	/**
+	 * Creates statistics of the solutions found with the given move rules.
+	 */
+	public SolutionStatistics(final MoveRules rules, final int boardWidth, final int boardHeight) {
+		this.rules = rules;
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		cellCount = boardWidth * boardHeight;
+		countsByStartAndEnd = new long[cellCount * cellCount];
+		visitsByStep = new long[cellCount * cellCount];
+		for (Move move : MOVES) {
+			cellChanges[move.ordinal()] = rules.rowChange(move) * boardWidth + rules.colChange(move);
+		}
+	}
+
+	private int getCellIndex(final Position pos) {
+		return pos.row * boardWidth + pos.col;
+	}
+
+	/**
+	 * Adds a single solution to the statistics.
+	 */
+	public void add(final Solution solution) {
+		final int start = getCellIndex(solution.startPosition);
+		int cell = start;
+		visitsByStep[cell]++;
+		for (int step = 1; step <= solution.moves.size(); step++) {
+			final Move move = solution.moves.get(step - 1);
+			cell += cellChanges[move.ordinal()];
+			visitsByStep[step * cellCount + cell]++;
+		}
+
+		countsByStartAndEnd[start * cellCount + cell]++;
+		if (!solution.moves.isEmpty()) {
+			countsByFirstMove[solution.moves.get(0).ordinal()]++;
+		}
+		total++;
+	}
+
+	/**
+	 * Adds the statistics of another part of the search on the same board.
+	 */
+	void add(final SolutionStatistics other) {
+		for (int i = 0; i < countsByStartAndEnd.length; i++) {
+			countsByStartAndEnd[i] += other.countsByStartAndEnd[i];
+			visitsByStep[i] += other.visitsByStep[i];
+		}
+		for (int i = 0; i < countsByFirstMove.length; i++) {
+			countsByFirstMove[i] += other.countsByFirstMove[i];
+		}
+		total += other.total;
+	}
+
+	/**
+	 * Returns the statistics of all the solutions deduced from the solutions
+	 * in these statistics by the symmetries of the board. Each symmetry maps
+	 * every cell and move of a solution to a cell and move of the deduced
+	 * solution, so the counts are only moved to the mapped cells and moves.
+	 */
+	SolutionStatistics applySymmetries(final BoardSymmetry boardSymmetry) {
+		final SolutionStatistics all = new SolutionStatistics(rules, boardWidth, boardHeight);
+		final int[] mappedCells = new int[cellCount];
+		for (Symmetry symmetry : boardSymmetry.symmetries) {
+			for (int cell = 0; cell < cellCount; cell++) {
+				mappedCells[cell] = getCellIndex(symmetry.apply(new Position(cell % boardWidth, cell / boardWidth), boardWidth, boardHeight));
+			}
+
+			for (int from = 0; from < cellCount; from++) {
+				for (int to = 0; to < cellCount; to++) {
+					all.countsByStartAndEnd[mappedCells[from] * cellCount + mappedCells[to]] += countsByStartAndEnd[from * cellCount + to];
+					// For the heatmap, "from" is the step and "to" the cell
+					all.visitsByStep[from * cellCount + mappedCells[to]] += visitsByStep[from * cellCount + to];
+				}
+			}
+			for (Move move : MOVES) {
+				all.countsByFirstMove[symmetry.apply(move).ordinal()] += countsByFirstMove[move.ordinal()];
+			}
+			all.total += total;
+		}
+		return all;
+	}
+
+	public long total() {
+		return total;
+	}
+
+	public long getSolutionsStartingFrom(final Position start) {
+		return getSolutionsVisiting(start, 0);
+	}
+
+	public long getSolutionsEndingIn(final Position end) {
+		return getSolutionsVisiting(end, cellCount - 1);
+	}
+
+	public long getSolutions(final Position start, final Position end) {
+		return countsByStartAndEnd[getCellIndex(start) * cellCount + getCellIndex(end)];
+	}
+
+	public long getSolutionsWithFirstMove(final Move firstMove) {
+		return countsByFirstMove[firstMove.ordinal()];
+	}
+
+	/**
+	 * Returns the number of solutions visiting the given cell at the given
+	 * step, the starting cell being visited at step 0.
+	 */
+	public long getSolutionsVisiting(final Position cell, final int step) {
+		return visitsByStep[step * cellCount + getCellIndex(cell)];
+	}
+}
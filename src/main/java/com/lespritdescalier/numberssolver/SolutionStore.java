@@ -0,0 +1,244 @@
+package com.lespritdescalier.numberssolver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A file of solutions grouped by their starting cell, memory-mapped for
+ * random access. Any solution can be read by its starting cell and index
+ * without reading the rest of the file.
+ * <p>
+ * The file starts with a header telling the size of the board and the number
+ * of solutions from each cell (in cell index order). The header is followed
+ * by the solutions from each cell in turn, as fixed-length records in the
+ * {@link SolutionEncoding} format.
+ * <p>
+ * A store is created with the number of solutions from each cell known
+ * beforehand, after which the solutions can be added to it in any order and
+ * from several threads.
+ */
+public class SolutionStore implements Closeable {
+	static final int MAGIC = 0x4e505353; // "NPSS"
+
+	/**
+	 * The maximum size of a single mapped region of the file. The regions are
+	 * cut at record boundaries so no record is split between two regions.
+	 */
+	private static final int MAX_REGION_SIZE = 1 << 30;
+
+	private final FileChannel channel;
+	private final SolutionEncoding encoding;
+	private final long[] countsByCell;
+
+	/**
+	 * The index of the first solution from each cell among all the solutions.
+	 */
+	private final long[] firstIndexByCell;
+
+	/**
+	 * The number of solutions added so far from each cell, when adding solutions.
+	 */
+	private final long[] addedByCell;
+
+	private final MappedByteBuffer[] regions;
+	private final int recordsPerRegion;
+
+	private SolutionStore(final FileChannel channel, final SolutionEncoding encoding, final long[] countsByCell,
+						  final FileChannel.MapMode mapMode) throws IOException {
+		this.channel = channel;
+		this.encoding = encoding;
+		this.countsByCell = countsByCell;
+
+		final int cellCount = countsByCell.length;
+		firstIndexByCell = new long[cellCount];
+		long total = 0;
+		for (int cell = 0; cell < cellCount; cell++) {
+			firstIndexByCell[cell] = total;
+			total += countsByCell[cell];
+		}
+		addedByCell = new long[cellCount];
+
+		final long dataStart = headerLength(cellCount);
+		recordsPerRegion = MAX_REGION_SIZE / encoding.recordLength;
+		final long regionLength = (long) recordsPerRegion * encoding.recordLength;
+		final long dataLength = total * encoding.recordLength;
+		regions = new MappedByteBuffer[(int) ((dataLength + regionLength - 1) / regionLength)];
+		for (int i = 0; i < regions.length; i++) {
+			final long regionStart = i * regionLength;
+			regions[i] = channel.map(mapMode, dataStart + regionStart, Math.min(regionLength, dataLength - regionStart));
+		}
+	}
+
+	private static long headerLength(final int cellCount) {
+		return Integer.BYTES + 2 + (long) cellCount * Long.BYTES;
+	}
+
+	/**
+	 * Creates a new store with room for the given number of solutions from
+	 * each starting cell.
+	 *
+	 * @param file                     the file to create, replacing an existing file
+	 * @param boardWidth               the width of the board
+	 * @param boardHeight              the height of the board
+	 * @param solutionsByStartingPoint the number of solutions from each starting cell
+	 * @return an empty store to add the solutions to
+	 */
+	public static SolutionStore create(final Path file, final int boardWidth, final int boardHeight,
+									   final Map<Position, Long> solutionsByStartingPoint) throws IOException {
+		final SolutionEncoding encoding = new SolutionEncoding(boardWidth, boardHeight);
+		final long[] countsByCell = new long[boardWidth * boardHeight];
+		solutionsByStartingPoint.forEach((pos, count) -> countsByCell[pos.row * boardWidth + pos.col] = count);
+
+		final ByteBuffer header = ByteBuffer.allocate((int) headerLength(countsByCell.length));
+		header.putInt(MAGIC);
+		header.put((byte) boardWidth);
+		header.put((byte) boardHeight);
+		for (long count : countsByCell) {
+			header.putLong(count);
+		}
+		header.flip();
+
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		return new SolutionStore(channel, encoding, countsByCell, FileChannel.MapMode.READ_WRITE);
+	}
+
+	/**
+	 * Opens an existing store for reading.
+	 *
+	 * @param file the store file
+	 * @return the opened store
+	 */
+	public static SolutionStore open(final Path file) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		final ByteBuffer start = ByteBuffer.allocate(Integer.BYTES + 2);
+		channel.read(start, 0);
+		start.flip();
+		if (start.getInt() != MAGIC) {
+			channel.close();
+			throw new IOException("Not a solution store: " + file);
+		}
+		final SolutionEncoding encoding = new SolutionEncoding(Byte.toUnsignedInt(start.get()), Byte.toUnsignedInt(start.get()));
+
+		final long[] countsByCell = new long[encoding.boardWidth * encoding.boardHeight];
+		final ByteBuffer counts = ByteBuffer.allocate(countsByCell.length * Long.BYTES);
+		channel.read(counts, start.capacity());
+		counts.flip();
+		counts.asLongBuffer().get(countsByCell);
+
+		return new SolutionStore(channel, encoding, countsByCell, FileChannel.MapMode.READ_ONLY);
+	}
+
+	public SolutionEncoding getEncoding() {
+		return encoding;
+	}
+
+	private int getCellIndex(final Position startPosition) {
+		return startPosition.row * encoding.boardWidth + startPosition.col;
+	}
+
+	/**
+	 * Returns the number of solutions from the given starting cell.
+	 */
+	public long count(final Position startPosition) {
+		return countsByCell[getCellIndex(startPosition)];
+	}
+
+	/**
+	 * Adds a solution to the segment of its starting cell.
+	 *
+	 * @param solution the solution to add
+	 * @throws IllegalStateException if all the solutions from the starting cell have already been added
+	 */
+	public void add(final Solution solution) {
+		final int cell = getCellIndex(solution.startPosition);
+		final long index;
+		synchronized (addedByCell) {
+			if (addedByCell[cell] >= countsByCell[cell]) {
+				throw new IllegalStateException("No room for more solutions from " + solution.startPosition);
+			}
+			index = addedByCell[cell]++;
+		}
+
+		final byte[] record = new byte[encoding.recordLength];
+		encoding.encode(solution, record, 0);
+		final long globalIndex = firstIndexByCell[cell] + index;
+		regions[(int) (globalIndex / recordsPerRegion)].put((int) (globalIndex % recordsPerRegion) * encoding.recordLength, record);
+	}
+
+	/**
+	 * Returns a single solution from the given starting cell.
+	 *
+	 * @param startPosition the starting cell of the solution
+	 * @param index         the index of the solution among the solutions from the cell
+	 * @return the solution
+	 */
+	public Solution get(final Position startPosition, final long index) {
+		final int cell = getCellIndex(startPosition);
+		if (index < 0 || index >= countsByCell[cell]) {
+			throw new IndexOutOfBoundsException("No solution #" + index + " from " + startPosition);
+		}
+
+		final byte[] record = new byte[encoding.recordLength];
+		final long globalIndex = firstIndexByCell[cell] + index;
+		regions[(int) (globalIndex / recordsPerRegion)].get((int) (globalIndex % recordsPerRegion) * encoding.recordLength, record);
+		return encoding.decode(record, 0);
+	}
+
+	/**
+	 * Returns the solutions from the given starting cell with indices from
+	 * {@code fromIndex} (inclusive) to {@code toIndex} (exclusive). The
+	 * solutions are read only as they are iterated.
+	 */
+	public Iterable<Solution> range(final Position startPosition, final long fromIndex, final long toIndex) {
+		if (fromIndex < 0 || toIndex > count(startPosition) || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("Invalid range " + fromIndex + "-" + toIndex + " from " + startPosition);
+		}
+
+		return () -> new Iterator<>() {
+			private long index = fromIndex;
+
+			@Override
+			public boolean hasNext() {
+				return index < toIndex;
+			}
+
+			@Override
+			public Solution next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return get(startPosition, index++);
+			}
+		};
+	}
+
+	/**
+	 * Returns all the solutions from the given starting cell.
+	 */
+	public Iterable<Solution> solutionsFrom(final Position startPosition) {
+		return range(startPosition, 0, count(startPosition));
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (MappedByteBuffer region : regions) {
+			if (!region.isReadOnly()) {
+				region.force();
+			}
+		}
+		channel.close();
+	}
+}
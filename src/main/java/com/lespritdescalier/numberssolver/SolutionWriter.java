@@ -0,0 +1,55 @@
+package com.lespritdescalier.numberssolver;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Writes solutions to a file in the {@link SolutionEncoding} format as they
+ * are received. The file starts with a header telling the size of the board,
+ * followed by the fixed-length solution records.
+ * <p>
+ * Solutions can be written from several threads at the same time.
+ */
+public class SolutionWriter implements Consumer<Solution>, Closeable {
+	static final int MAGIC = 0x4e505331; // "NPS1"
+
+	private final SolutionEncoding encoding;
+	private final DataOutputStream output;
+	private final byte[] record;
+	private long solutionCount;
+
+	public SolutionWriter(final Path file, final int boardWidth, final int boardHeight) throws IOException {
+		encoding = new SolutionEncoding(boardWidth, boardHeight);
+		record = new byte[encoding.recordLength];
+		output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+		output.writeInt(MAGIC);
+		output.writeByte(boardWidth);
+		output.writeByte(boardHeight);
+	}
+
+	@Override
+	public synchronized void accept(final Solution solution) {
+		encoding.encode(solution, record, 0);
+		try {
+			output.write(record);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		solutionCount++;
+	}
+
+	public synchronized long getSolutionCount() {
+		return solutionCount;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		output.close();
+	}
+}
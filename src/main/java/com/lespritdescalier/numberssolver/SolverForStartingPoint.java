@@ -1,13 +1,14 @@
 package com.lespritdescalier.numberssolver;
 
-import com.google.common.collect.ImmutableSet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+public class SolverForStartingPoint implements StartingPointSolver {
+	private static final Move[] MOVES = Move.values();
 
-public class SolverForStartingPoint implements Callable<List<Solution>> {
 	private final Logger logger = LogManager.getLogger(SolverForStartingPoint.class);
 	private final boolean SHOW_SOLUTION_BOARD = false;
 
@@ -19,23 +20,129 @@ public class SolverForStartingPoint implements Callable<List<Solution>> {
 	private final Position startPosition;
 
 	/**
-	 * The moves that the current depth-first search has made so far.
+	 * The moves made before starting the search, when searching only a
+	 * subtree of the starting point.
+	 */
+	private final List<Move> movePrefix;
+
+	/**
+	 * The ordinals of the moves that the current depth-first search has made
+	 * so far, as a stack of {@link #moveCount} moves preallocated for the
+	 * longest possible path.
 	 */
-	private final List<Move> moves;
+	private final byte[] moves;
+	private int moveCount;
 
 	/**
 	 * Found solutions.
 	 */
 	private final List<Solution> solutions;
 
-	private final Set<Move> neededFirstMovesFromAxisPoint = ImmutableSet.of(Move.NW, Move.N, Move.NE, Move.E, Move.SE);
-	private final Move[][] possibleMovesByPoint;
+	/**
+	 * Receives each found solution when not only counting them.
+	 */
+	private Consumer<Solution> solutionConsumer;
+
+	/**
+	 * Number of found solutions when only counting them.
+	 */
+	private SolutionCount solutionCount;
+
+	/**
+	 * Where to store the progress of the count, if anywhere.
+	 */
+	private SearchCheckpoint.Entry checkpointEntry;
+	private int checkpointUpdateInterval;
+	private int nodesUntilCheckpointUpdate;
+
+	/**
+	 * The path to continue a resumed count from. The search follows it,
+	 * skipping the moves before it, until the whole path has been made.
+	 */
+	private List<Move> resumePath = Collections.emptyList();
+	private boolean resuming;
+
+	/**
+	 * Counts the progress of the search for monitoring, if it's monitored.
+	 */
+	private ProgressRecorder progressRecorder;
+
+	/**
+	 * The possible moves from each cell and the cells they lead to, as the
+	 * flat arrays of the successor table.
+	 */
+	private final SuccessorTable successors;
+	private final int[] offsets;
+	private final Move[] successorMoves;
+	private final int[] targets;
+
+	/**
+	 * The symmetries of the board keeping the starting point in place, as
+	 * tracked by {@link SymmetryBreaker}.
+	 */
+	private final int stabilizer;
+
+	/**
+	 * Cuts the branches of the search that can no longer cover the whole board.
+	 * Kept in sync with the board.
+	 */
+	private final ConnectivityPruner pruner;
 
-	public SolverForStartingPoint(final Position startPosition, final int boardSize, final Move[][] possibleMovesByPoint) {
+	/**
+	 * The numbers fixed to given cells, or null if the search is unconstrained.
+	 */
+	private final PuzzleConstraints constraints;
+
+	/**
+	 * The minimum numbers of moves to the cells of the fixed numbers, as
+	 * returned by {@link PuzzleConstraints#minimumMovesToFixedCells(SuccessorTable)},
+	 * or null if the search is unconstrained.
+	 */
+	private final int[][] minimumMovesToFixedCells;
+
+	/**
+	 * Creates a solver for the board and moves of the given successor table.
+	 */
+	SolverForStartingPoint(final Position startPosition, final SuccessorTable successors) {
+		this(startPosition, successors, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves. The moves are expected to form a valid path on the board.
+	 */
+	SolverForStartingPoint(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix) {
+		this(startPosition, successors, movePrefix, null);
+	}
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves and keeping the fixed numbers of the given constraints in
+	 * their cells. Only the symmetries preserved by the constraints are used
+	 * to cut the search.
+	 *
+	 * @param constraints the numbers fixed to given cells, or null for none
+	 */
+	SolverForStartingPoint(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix,
+						   final PuzzleConstraints constraints) {
 		this.startPosition = startPosition;
-		this.board = new Board(boardSize);
-		this.possibleMovesByPoint = possibleMovesByPoint;
-		moves = new LinkedList<>();
+		this.movePrefix = movePrefix;
+		this.board = new Board(successors.boardWidth, successors.boardHeight);
+		this.successors = successors;
+		this.offsets = successors.offsets;
+		this.successorMoves = successors.moves;
+		this.targets = successors.targets;
+		this.pruner = ConnectivityPruner.forSuccessors(successors);
+		this.constraints = constraints;
+		if (constraints != null) {
+			this.stabilizer = SymmetryBreaker.stabilizer(startPosition, board.width, board.height,
+					constraints.preservedOf(successors.symmetries));
+			this.minimumMovesToFixedCells = constraints.minimumMovesToFixedCells(successors);
+		} else {
+			this.stabilizer = SymmetryBreaker.stabilizer(startPosition, successors);
+			this.minimumMovesToFixedCells = null;
+		}
+		moves = new byte[successors.cellCount];
 		solutions = new LinkedList<>();
 	}
 
@@ -57,70 +164,202 @@ public class SolverForStartingPoint implements Callable<List<Solution>> {
 		}
 	}
 
-	private boolean isPossibleMove(final Position newPosCandidate) {
-		return !board.isPositionOccupied(newPosCandidate);
+	private void addNumber(final int cell, final int number) {
+		board.addNumber(cell, number);
+		pruner.occupy(cell);
+	}
+
+	private void removeNumber(final int cell) {
+		board.removeNumber(cell);
+		pruner.release(cell);
+	}
+
+	/**
+	 * Tells whether entering the given number in the given cell keeps the
+	 * numbers fixed by the constraints in their cells, and keeps the cell of
+	 * the next fixed number reachable in exactly the right number of moves.
+	 */
+	private boolean meetsConstraints(final int number, final int cell) {
+		return constraints == null || constraints.allowsOnPath(number, cell, minimumMovesToFixedCells);
+	}
+
+	private void pushMove(final Move move) {
+		moves[moveCount++] = (byte) move.ordinal();
 	}
 
-	private void clearLastMove(final Position pos) {
-		board.removeNumber(pos);
-		if (!moves.isEmpty()) {
-			moves.remove(moves.size() - 1);
+	/**
+	 * Returns the moves made so far as a list, for the rare occasions that
+	 * need them as objects.
+	 */
+	private List<Move> movesMade() {
+		final List<Move> made = new ArrayList<>(moveCount);
+		for (int i = 0; i < moveCount; i++) {
+			made.add(MOVES[moves[i]]);
 		}
+		return made;
 	}
 
-	private void findNextMove(final int currentNumber, final Position currentPos, final Move[] movesToAttempt) {
+	/**
+	 * The position of the search is passed as a cell index instead of a
+	 * {@link Position}, and the moves from it are looked up from the flat
+	 * arrays of the successor table, so the search doesn't create any objects
+	 * between finding solutions.
+	 *
+	 * @param fixingSymmetries the symmetries mapping the path made so far to
+	 *                         itself, as tracked by {@link SymmetryBreaker}
+	 */
+	private void findNextMove(final int currentNumber, final int currentCell, final int fixingSymmetries) {
 		logSearchProgress();
+		if (progressRecorder != null) {
+			progressRecorder.nodeVisited(moveCount);
+		}
 
-		for (Move moveToAttempt : movesToAttempt) {
-			Position newPosCandidate = currentPos.applyMove(moveToAttempt);
-
-			if (isPossibleMove(newPosCandidate)) {
-				moves.add(moveToAttempt);
-				board.addNumber(newPosCandidate, currentNumber);
-
-				if (board.isFull()) {
-					Solution foundSolution = new Solution(startPosition, moves);
-					solutions.add(foundSolution);
-					if (logger.isDebugEnabled()) {
-						logFoundSolution(foundSolution);
-					}
-					clearLastMove(newPosCandidate);
-				} else {
-					findNextMove(currentNumber + 1, newPosCandidate, possibleMovesByPoint[getCellIndex(newPosCandidate.row, newPosCandidate.col)]);
-				}
+		int firstMoveIndex = offsets[currentCell];
+		if (resuming) {
+			if (moveCount < resumePath.size()) {
+				firstMoveIndex += AbstractBitboardSolver.resumeMoveIndex(successors.movesByCell[currentCell],
+						resumePath.get(moveCount));
+			} else {
+				resuming = false;
 			}
+		} else if (checkpointEntry != null && --nodesUntilCheckpointUpdate == 0) {
+			nodesUntilCheckpointUpdate = checkpointUpdateInterval;
+			checkpointEntry.update(movesMade(), solutionCount);
 		}
 
-		clearLastMove(currentPos);
+		final int lastMoveIndex = offsets[currentCell + 1];
+		for (int i = firstMoveIndex; i < lastMoveIndex; i++) {
+			final Move moveToAttempt = successorMoves[i];
+			if (!SymmetryBreaker.isCanonical(fixingSymmetries, moveToAttempt)) {
+				continue;
+			}
+			final int newCell = targets[i];
+			if (board.isCellOccupied(newCell) || !meetsConstraints(currentNumber, newCell)) {
+				continue;
+			}
+
+			pushMove(moveToAttempt);
+			addNumber(newCell, currentNumber);
+
+			if (board.isFull()) {
+				addFoundSolution();
+			} else if (!pruner.isDeadEnd(newCell)) {
+				findNextMove(currentNumber + 1, newCell, SymmetryBreaker.fixingSymmetriesAfter(fixingSymmetries, moveToAttempt));
+			}
+
+			removeNumber(newCell);
+			moveCount--;
+		}
 	}
 
-	public List<Solution> searchSolutions() {
-		logger.info("Starting from {}", startPosition);
-		board.clear();
-		moves.clear();
-		int startingNumber = 1;
-		board.addNumber(startPosition, startingNumber);
-
-		Move[] movesToAttempt;
-		if (startPosition.col == startPosition.row) {
-			movesToAttempt = Arrays.stream(Move.values())
-					.filter(neededFirstMovesFromAxisPoint::contains)
-					.filter(ImmutableSet.copyOf(possibleMovesByPoint[getCellIndex(startPosition.row, startPosition.col)])::contains)
-					.toArray(Move[]::new);
+	private void addFoundSolution() {
+		if (progressRecorder != null) {
+			progressRecorder.solutionFound();
+		}
+		if (solutionCount != null) {
+			solutionCount.increment(MOVES[moves[0]]);
 		} else {
-			movesToAttempt = possibleMovesByPoint[getCellIndex(startPosition.row, startPosition.col)];
+			Solution foundSolution = Solution.fromPackedMoves(startPosition, moves, moveCount);
+			solutionConsumer.accept(foundSolution);
+			if (logger.isDebugEnabled()) {
+				logFoundSolution(foundSolution);
+			}
 		}
-		findNextMove(startingNumber + 1, startPosition, movesToAttempt);
+	}
 
+	@Override
+	public List<Solution> searchSolutions() {
+		solutionConsumer = solutions::add;
+		search();
 		return solutions;
 	}
 
-	private int getCellIndex(final int row, final int col) {
-		return row * board.width + col;
+	@Override
+	public long searchSolutions(final Consumer<Solution> consumer) {
+		final long[] found = new long[1];
+		solutionConsumer = solution -> {
+			found[0]++;
+			consumer.accept(solution);
+		};
+		search();
+		return found[0];
+	}
+
+	@Override
+	public SolutionCount countSolutions() {
+		solutionCount = new SolutionCount(startPosition);
+		search();
+		return solutionCount;
 	}
 
 	@Override
-	public List<Solution> call() {
-		return this.searchSolutions();
+	public SolutionCount countSolutions(final SearchCheckpoint.Entry checkpointEntry, final int updateInterval) {
+		this.checkpointEntry = checkpointEntry;
+		checkpointUpdateInterval = updateInterval;
+		nodesUntilCheckpointUpdate = updateInterval;
+		solutionCount = checkpointEntry.getCount();
+		resumePath = checkpointEntry.getPath();
+		resuming = !resumePath.isEmpty();
+		search();
+		return solutionCount;
+	}
+
+	@Override
+	public void setProgress(final SearchProgress progress) {
+		progressRecorder = new ProgressRecorder(progress);
+	}
+
+	private void search() {
+		if (progressRecorder == null) {
+			searchFromStartPosition();
+			return;
+		}
+
+		progressRecorder.started();
+		try {
+			searchFromStartPosition();
+		} finally {
+			progressRecorder.finished();
+		}
+	}
+
+	private void searchFromStartPosition() {
+		if (movePrefix.isEmpty()) {
+			logger.info("Starting from {}", startPosition);
+		} else {
+			logger.debug("Starting from {} after {}", startPosition, movePrefix);
+		}
+		final int fixingSymmetries = SymmetryBreaker.fixingSymmetriesAfter(stabilizer, movePrefix);
+		if (fixingSymmetries == SymmetryBreaker.NOT_CANONICAL) {
+			return;
+		}
+
+		board.clear();
+		pruner.clear();
+		moveCount = 0;
+		int currentNumber = 1;
+		int currentCell = successors.getCellIndex(startPosition);
+		if (!meetsConstraints(currentNumber, currentCell)) {
+			return;
+		}
+		addNumber(currentCell, currentNumber);
+
+		for (Move move : movePrefix) {
+			pushMove(move);
+			currentCell = successors.target(currentCell, move);
+			if (!meetsConstraints(currentNumber + 1, currentCell)) {
+				return;
+			}
+			addNumber(currentCell, ++currentNumber);
+		}
+
+		if (!movePrefix.isEmpty() && board.isFull()) {
+			addFoundSolution();
+			return;
+		}
+
+		if (movePrefix.isEmpty() || !pruner.isDeadEnd(currentCell)) {
+			findNextMove(currentNumber + 1, currentCell, fixingSymmetries);
+		}
 	}
 }
@@ -0,0 +1,81 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * A depth-first search for all solutions starting from a single cell of the
+ * board. Different implementations store the state of the progressing search
+ * differently but must find the same solutions in the same order.
+ * <p>
+ * A solver is run only once, with one of the search or count methods.
+ */
+public interface StartingPointSolver extends Callable<List<Solution>> {
+	List<Solution> searchSolutions();
+
+	/**
+	 * Searches the solutions like {@link #searchSolutions()} but passes each
+	 * found solution to the given consumer as soon as it's found instead of
+	 * collecting them.
+	 *
+	 * @param consumer the receiver of the found solutions
+	 * @return the number of found solutions
+	 */
+	long searchSolutions(Consumer<Solution> consumer);
+
+	/**
+	 * Searches the solutions like {@link #searchSolutions()} but only counts
+	 * them instead of creating a {@link Solution} for each.
+	 *
+	 * @return the number of found solutions
+	 */
+	SolutionCount countSolutions();
+
+	/**
+	 * Counts the solutions like {@link #countSolutions()}, continuing from the
+	 * path and count stored in the given checkpoint entry, and updating the
+	 * entry every now and then as the search progresses.
+	 *
+	 * @param checkpointEntry the progress of the search so far
+	 * @param updateInterval  the number of search nodes visited between updates
+	 * @return the number of found solutions, including the ones in the checkpoint
+	 */
+	SolutionCount countSolutions(SearchCheckpoint.Entry checkpointEntry, int updateInterval);
+
+	/**
+	 * Makes the solver report its progress to the given shared progress of
+	 * the starting point. Must be called before searching, if at all.
+	 *
+	 * @param progress the progress of the search from the starting point
+	 */
+	void setProgress(SearchProgress progress);
+
+	/**
+	 * Makes the solver look up and store the counts of the subtrees of its
+	 * search in the given table when counting the solutions. Must be called
+	 * before searching, if at all. Solvers that can't key their states by
+	 * bitmasks of the occupied cells ignore the table.
+	 *
+	 * @param transpositionTable the table, used only by the thread running the solver
+	 */
+	default void setTranspositionTable(TranspositionTable transpositionTable) {
+	}
+
+	/**
+	 * Makes the solver stop searching as soon as the given condition holds,
+	 * e.g. when the whole search has found enough solutions. Must be called
+	 * before searching, if at all. Solvers that always search their whole
+	 * subtree ignore the condition.
+	 *
+	 * @param stopCondition tells whether to stop, checked between the moves
+	 */
+	default void setStopCondition(BooleanSupplier stopCondition) {
+	}
+
+	@Override
+	default List<Solution> call() {
+		return searchSolutions();
+	}
+}
@@ -0,0 +1,406 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A part of the search from a single starting point, run in a fork/join pool.
+ * Until the given split depth is reached, the task forks a subtask for each
+ * possible next move instead of searching itself. This keeps all the workers
+ * of the pool busy even when there are only a few starting points, or when
+ * the solutions from some of them take much longer to find than others.
+ * <p>
+ * Outside a fork/join pool, the tasks at the split depth can be listed with
+ * {@link #subtreeTasks()} and run separately, as done by {@link SearchExecutor}.
+ * <p>
+ * The results of the subtasks are merged in the order of the moves, so the
+ * results are the same as when searching the whole starting point at once.
+ *
+ * @param <R> the type of the search result
+ */
+@SuppressWarnings("serial") // the tasks, including the nested ones, are never serialized
+abstract class SubtreeSearchTask<R> extends RecursiveTask<R> {
+	private static final Logger logger = LogManager.getLogger(SubtreeSearchTask.class);
+
+	protected final SearchContext context;
+
+	protected final Position startPosition;
+	protected final List<Move> movePrefix;
+
+	SubtreeSearchTask(final SearchContext context, final Position startPosition) {
+		this.context = context;
+		this.startPosition = startPosition;
+		this.movePrefix = ImmutableList.of();
+	}
+
+	protected SubtreeSearchTask(final SubtreeSearchTask<R> parent, final Move nextMove) {
+		this.context = parent.context;
+		this.startPosition = parent.startPosition;
+		this.movePrefix = ImmutableList.<Move>builder().addAll(parent.movePrefix).add(nextMove).build();
+	}
+
+	protected abstract SubtreeSearchTask<R> createSubtask(Move nextMove);
+
+	protected abstract R search(StartingPointSolver solver);
+
+	protected abstract R merge(List<R> results);
+
+	protected abstract long solutionCount(R result);
+
+	@Override
+	protected R compute() {
+		final List<SubtreeSearchTask<R>> subtasks = createSubtasks();
+		if (subtasks == null) {
+			return searchSubtree();
+		}
+		invokeAll(subtasks);
+
+		final List<R> results = new ArrayList<>();
+		for (SubtreeSearchTask<R> subtask : subtasks) {
+			results.add(subtask.join());
+		}
+		return merge(results);
+	}
+
+	/**
+	 * Returns the tasks searching the subtrees of this task at the split
+	 * depth, in the order their results are merged in. These are the tasks
+	 * that search their subtrees themselves when this task is run in a
+	 * fork/join pool.
+	 */
+	List<SubtreeSearchTask<R>> subtreeTasks() {
+		final List<SubtreeSearchTask<R>> subtasks = createSubtasks();
+		if (subtasks == null) {
+			return List.of(this);
+		}
+
+		final List<SubtreeSearchTask<R>> subtreeTasks = new ArrayList<>();
+		for (SubtreeSearchTask<R> subtask : subtasks) {
+			subtreeTasks.addAll(subtask.subtreeTasks());
+		}
+		return subtreeTasks;
+	}
+
+	/**
+	 * Returns a subtask for each possible next move, or null if the split
+	 * depth has been reached and the task searches its subtree itself.
+	 */
+	private List<SubtreeSearchTask<R>> createSubtasks() {
+		final SuccessorTable successors = context.successors;
+		int currentCell = successors.getCellIndex(startPosition);
+		final Set<Integer> visited = new HashSet<>();
+		visited.add(currentCell);
+		for (Move move : movePrefix) {
+			currentCell = successors.target(currentCell, move);
+			visited.add(currentCell);
+		}
+
+		if (movePrefix.size() >= context.splitDepth || visited.size() == successors.cellCount) {
+			return null;
+		}
+
+		final int fixingSymmetries = SymmetryBreaker.fixingSymmetriesAfter(context.stabilizer(startPosition), movePrefix);
+		final Move[] nextMoves = successors.movesByCell[currentCell];
+
+		final List<SubtreeSearchTask<R>> subtasks = new ArrayList<>();
+		for (Move nextMove : nextMoves) {
+			if (!visited.contains(successors.target(currentCell, nextMove)) && SymmetryBreaker.isCanonical(fixingSymmetries, nextMove)) {
+				subtasks.add(createSubtask(nextMove));
+			}
+		}
+		return subtasks;
+	}
+
+	/**
+	 * Creates the solver searching the subtree of this task.
+	 */
+	protected StartingPointSolver createSolver() {
+		return context.createSolver(startPosition, movePrefix);
+	}
+
+	R searchSubtree() {
+		final long startTime = System.nanoTime();
+		final StartingPointSolver solver = createSolver();
+		final TranspositionTable transpositionTable = context.borrowTranspositionTable();
+		final R result;
+		try {
+			if (transpositionTable != null) {
+				solver.setTranspositionTable(transpositionTable);
+			}
+			result = search(solver);
+		} finally {
+			context.returnTranspositionTable(transpositionTable);
+		}
+		final TaskTiming timing = new TaskTiming(startPosition, movePrefix, System.nanoTime() - startTime, solutionCount(result));
+		context.taskTimings.add(timing);
+		logger.debug("Searched subtree {}", timing);
+		return result;
+	}
+
+	/**
+	 * A task collecting the found solutions.
+	 */
+	static class Solutions extends SubtreeSearchTask<List<Solution>> {
+		Solutions(final SearchContext context, final Position startPosition) {
+			super(context, startPosition);
+		}
+
+		private Solutions(final Solutions parent, final Move nextMove) {
+			super(parent, nextMove);
+		}
+
+		@Override
+		protected SubtreeSearchTask<List<Solution>> createSubtask(final Move nextMove) {
+			return new Solutions(this, nextMove);
+		}
+
+		@Override
+		protected List<Solution> search(final StartingPointSolver solver) {
+			return solver.searchSolutions();
+		}
+
+		@Override
+		protected List<Solution> merge(final List<List<Solution>> results) {
+			final List<Solution> merged = new ArrayList<>();
+			results.forEach(merged::addAll);
+			return merged;
+		}
+
+		@Override
+		protected long solutionCount(final List<Solution> result) {
+			return result.size();
+		}
+	}
+
+	/**
+	 * A task passing the found solutions to a consumer as they are found,
+	 * attempting the moves by Warnsdorff's rule to find the first solutions
+	 * sooner, until the search is stopped. The result is the number of found
+	 * solutions.
+	 */
+	static class FirstFound extends SubtreeSearchTask<Long> {
+		private final Consumer<Solution> consumer;
+
+		FirstFound(final SearchContext context, final Position startPosition, final Consumer<Solution> consumer) {
+			super(context, startPosition);
+			this.consumer = consumer;
+		}
+
+		private FirstFound(final FirstFound parent, final Move nextMove) {
+			super(parent, nextMove);
+			this.consumer = parent.consumer;
+		}
+
+		@Override
+		protected SubtreeSearchTask<Long> createSubtask(final Move nextMove) {
+			return new FirstFound(this, nextMove);
+		}
+
+		@Override
+		protected StartingPointSolver createSolver() {
+			return context.createWarnsdorffSolver(startPosition, movePrefix);
+		}
+
+		@Override
+		protected Long search(final StartingPointSolver solver) {
+			return solver.searchSolutions(consumer);
+		}
+
+		@Override
+		protected Long merge(final List<Long> results) {
+			return results.stream().mapToLong(Long::longValue).sum();
+		}
+
+		@Override
+		protected long solutionCount(final Long result) {
+			return result;
+		}
+	}
+
+	/**
+	 * A task passing the found solutions to a consumer as they are found.
+	 * The result is the number of found solutions.
+	 */
+	static class Streaming extends SubtreeSearchTask<Long> {
+		private final Consumer<Solution> consumer;
+
+		Streaming(final SearchContext context, final Position startPosition, final Consumer<Solution> consumer) {
+			super(context, startPosition);
+			this.consumer = consumer;
+		}
+
+		private Streaming(final Streaming parent, final Move nextMove) {
+			super(parent, nextMove);
+			this.consumer = parent.consumer;
+		}
+
+		@Override
+		protected SubtreeSearchTask<Long> createSubtask(final Move nextMove) {
+			return new Streaming(this, nextMove);
+		}
+
+		@Override
+		protected Long search(final StartingPointSolver solver) {
+			return solver.searchSolutions(consumer);
+		}
+
+		@Override
+		protected Long merge(final List<Long> results) {
+			return results.stream().mapToLong(Long::longValue).sum();
+		}
+
+		@Override
+		protected long solutionCount(final Long result) {
+			return result;
+		}
+	}
+
+	/**
+	 * A task passing the found solutions, each expanded to the solutions
+	 * deduced from it, to a batch of its own, and handing the batch over to
+	 * a {@link SolutionBatcher} whenever it's full. The result is the number
+	 * of found solutions before expanding them.
+	 */
+	static class Batched extends SubtreeSearchTask<Long> {
+		private final SolutionBatcher batcher;
+		private final BiConsumer<Solution, Consumer<Solution>> expander;
+
+		Batched(final SearchContext context, final Position startPosition, final SolutionBatcher batcher,
+				final BiConsumer<Solution, Consumer<Solution>> expander) {
+			super(context, startPosition);
+			this.batcher = batcher;
+			this.expander = expander;
+		}
+
+		private Batched(final Batched parent, final Move nextMove) {
+			super(parent, nextMove);
+			this.batcher = parent.batcher;
+			this.expander = parent.expander;
+		}
+
+		@Override
+		protected SubtreeSearchTask<Long> createSubtask(final Move nextMove) {
+			return new Batched(this, nextMove);
+		}
+
+		@Override
+		protected Long search(final StartingPointSolver solver) {
+			final SolutionBatcher.Batch batch = batcher.newBatch();
+			final long found = solver.searchSolutions(unique -> expander.accept(unique, batch));
+			batch.flush();
+			return found;
+		}
+
+		@Override
+		protected Long merge(final List<Long> results) {
+			return results.stream().mapToLong(Long::longValue).sum();
+		}
+
+		@Override
+		protected long solutionCount(final Long result) {
+			return result;
+		}
+	}
+
+	/**
+	 * A task accumulating statistics of the found solutions as they are
+	 * found. Each task has statistics of its own, so the tasks don't share
+	 * any state while searching.
+	 */
+	static class Statistics extends SubtreeSearchTask<SolutionStatistics> {
+		Statistics(final SearchContext context, final Position startPosition) {
+			super(context, startPosition);
+		}
+
+		private Statistics(final Statistics parent, final Move nextMove) {
+			super(parent, nextMove);
+		}
+
+		@Override
+		protected SubtreeSearchTask<SolutionStatistics> createSubtask(final Move nextMove) {
+			return new Statistics(this, nextMove);
+		}
+
+		@Override
+		protected SolutionStatistics search(final StartingPointSolver solver) {
+			final SolutionStatistics statistics = new SolutionStatistics(context.successors.rules, context.successors.boardWidth,
+					context.successors.boardHeight);
+			solver.searchSolutions(statistics::add);
+			return statistics;
+		}
+
+		@Override
+		protected SolutionStatistics merge(final List<SolutionStatistics> results) {
+			final SolutionStatistics merged = new SolutionStatistics(context.successors.rules, context.successors.boardWidth,
+					context.successors.boardHeight);
+			results.forEach(merged::add);
+			return merged;
+		}
+
+		@Override
+		protected long solutionCount(final SolutionStatistics result) {
+			return result.total();
+		}
+	}
+
+	/**
+	 * A task only counting the found solutions. If a checkpoint is given, the
+	 * progress of the count is stored in it, and tasks already completed
+	 * according to it are not searched again.
+	 */
+	static class Counts extends SubtreeSearchTask<SolutionCount> {
+		private final SearchCheckpoint checkpoint;
+
+		Counts(final SearchContext context, final Position startPosition, final SearchCheckpoint checkpoint) {
+			super(context, startPosition);
+			this.checkpoint = checkpoint;
+		}
+
+		private Counts(final Counts parent, final Move nextMove) {
+			super(parent, nextMove);
+			this.checkpoint = parent.checkpoint;
+		}
+
+		@Override
+		protected SubtreeSearchTask<SolutionCount> createSubtask(final Move nextMove) {
+			return new Counts(this, nextMove);
+		}
+
+		@Override
+		protected SolutionCount search(final StartingPointSolver solver) {
+			if (checkpoint == null) {
+				return solver.countSolutions();
+			}
+
+			final SearchCheckpoint.Entry entry = checkpoint.entryFor(startPosition, movePrefix);
+			if (entry.isComplete()) {
+				return entry.getCount();
+			}
+
+			final SolutionCount count = solver.countSolutions(entry, checkpoint.updateInterval);
+			entry.complete(count);
+			return count;
+		}
+
+		@Override
+		protected SolutionCount merge(final List<SolutionCount> results) {
+			final SolutionCount merged = new SolutionCount(startPosition);
+			results.forEach(merged::add);
+			return merged;
+		}
+
+		@Override
+		protected long solutionCount(final SolutionCount result) {
+			return result.total();
+		}
+	}
+}
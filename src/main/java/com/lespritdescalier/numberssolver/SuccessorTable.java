@@ -0,0 +1,140 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The moves of a {@link MoveRules} compiled for a board of a given size, for
+ * the searches to look up instead of applying the rules: the moves staying
+ * within the board from each cell, the cells they lead to and come from, and
+ * the symmetries of the board that the rules preserve.
+ * <p>
+ * The cells are indexed by row * width + col.
+ */
+final class SuccessorTable {
+	private static final Move[] MOVES = Move.values();
+
+	final MoveRules rules;
+	final int boardWidth;
+	final int boardHeight;
+	final int cellCount;
+
+	/**
+	 * The moves staying within the board from each cell, in the order of
+	 * {@link Move}, and the cells the moves lead to, in the same order.
+	 */
+	final Move[][] movesByCell;
+	final int[][] targetsByCell;
+
+	/**
+	 * The same moves and target cells of all the cells in flat arrays, for the
+	 * hot loop of a search: the ones of each cell are at the indices from
+	 * offsets[cell] up to, but not including, offsets[cell + 1].
+	 */
+	final int[] offsets;
+	final Move[] moves;
+	final int[] targets;
+
+	/**
+	 * The cells from which a move leads to each cell. The same as the targets
+	 * of the cell if the rules are reversible.
+	 */
+	final int[][] sourcesByCell;
+
+	/**
+	 * The symmetries of the board preserved by the rules, starting with the
+	 * identity.
+	 */
+	final List<Symmetry> symmetries;
+
+	final boolean reversible;
+
+	/**
+	 * The change of the cell index made by each move, indexed by the ordinal
+	 * of the move.
+	 */
+	private final int[] cellChanges = new int[MOVES.length];
+
+	private SuccessorTable(final MoveRules rules, final int boardWidth, final int boardHeight) {
+		this.rules = rules;
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		cellCount = boardWidth * boardHeight;
+		for (Move move : MOVES) {
+			cellChanges[move.ordinal()] = rules.rowChange(move) * boardWidth + rules.colChange(move);
+		}
+
+		movesByCell = new Move[cellCount][];
+		targetsByCell = new int[cellCount][];
+		final List<List<Integer>> sources = new ArrayList<>();
+		for (int cell = 0; cell < cellCount; cell++) {
+			sources.add(new ArrayList<>());
+		}
+		for (int cell = 0; cell < cellCount; cell++) {
+			final Position position = getPosition(cell);
+			final List<Move> possibleMoves = new ArrayList<>();
+			for (Move move : rules.getMoves()) {
+				final Position target = rules.apply(position, move);
+				if (target.col >= 0 && target.col < boardWidth && target.row >= 0 && target.row < boardHeight) {
+					possibleMoves.add(move);
+				}
+			}
+			movesByCell[cell] = possibleMoves.toArray(new Move[0]);
+			targetsByCell[cell] = new int[possibleMoves.size()];
+			for (int i = 0; i < possibleMoves.size(); i++) {
+				targetsByCell[cell][i] = target(cell, possibleMoves.get(i));
+				sources.get(targetsByCell[cell][i]).add(cell);
+			}
+		}
+
+		offsets = new int[cellCount + 1];
+		for (int cell = 0; cell < cellCount; cell++) {
+			offsets[cell + 1] = offsets[cell] + movesByCell[cell].length;
+		}
+		moves = new Move[offsets[cellCount]];
+		targets = new int[offsets[cellCount]];
+		for (int cell = 0; cell < cellCount; cell++) {
+			System.arraycopy(movesByCell[cell], 0, moves, offsets[cell], movesByCell[cell].length);
+			System.arraycopy(targetsByCell[cell], 0, targets, offsets[cell], targetsByCell[cell].length);
+		}
+
+		reversible = rules.isReversible();
+		sourcesByCell = new int[cellCount][];
+		for (int cell = 0; cell < cellCount; cell++) {
+			sourcesByCell[cell] = reversible
+					? targetsByCell[cell]
+					: sources.get(cell).stream().mapToInt(Integer::intValue).toArray();
+		}
+		symmetries = rules.preservedSymmetries(boardWidth, boardHeight);
+	}
+
+	/**
+	 * Compiles the given rules for a board of the given size.
+	 */
+	static SuccessorTable compile(final MoveRules rules, final int boardWidth, final int boardHeight) {
+		return new SuccessorTable(rules, boardWidth, boardHeight);
+	}
+
+	/**
+	 * Compiles the moves of the original puzzle for a square board.
+	 */
+	static SuccessorTable compile(final int boardSize) {
+		return compile(MoveRules.DEFAULT, boardSize, boardSize);
+	}
+
+	/**
+	 * Returns the cell the given move leads to from the given cell, without
+	 * checking that the move stays within the board.
+	 */
+	int target(final int cell, final Move move) {
+		return cell + cellChanges[move.ordinal()];
+	}
+
+	int getCellIndex(final Position position) {
+		return position.row * boardWidth + position.col;
+	}
+
+	Position getPosition(final int cell) {
+		return new Position(cell % boardWidth, cell / boardWidth);
+	}
+}
@@ -0,0 +1,129 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A read-only view of all the solutions of a board, deduced from the unique
+ * solutions by mirroring and rotating them only when the solutions are
+ * accessed. Only the unique solutions are kept in memory.
+ * <p>
+ * The solutions are ordered by the symmetry applied to the unique solutions,
+ * in the order of {@link BoardSymmetry#symmetries}. As the identity is the
+ * first symmetry, the list starts with the unique solutions in the given order.
+ * <p>
+ * The deduced solutions can also be created up front, in partitions of the
+ * unique solutions expanded separately by {@link #expand}, e.g. the solutions
+ * from each starting point. The list then only looks them up, in the same
+ * order as when deducing them on access.
+ */
+public class SymmetricSolutionList extends AbstractList<Solution> {
+	private final BoardSymmetry boardSymmetry;
+	private final List<Solution> uniqueSolutions;
+
+	/**
+	 * The solutions deduced from each partition of the unique solutions, and
+	 * the index of the first unique solution of each partition, or null if
+	 * the solutions are deduced on access.
+	 */
+	private final List<Solution[]> expandedPartitions;
+	private final int[] partitionOffsets;
+
+	/**
+	 * @param boardSize       the length of each side of the board
+	 * @param uniqueSolutions the canonical solutions found by the search,
+	 *                        expected to support fast random access
+	 */
+	public SymmetricSolutionList(final int boardSize, final List<Solution> uniqueSolutions) {
+		this(new BoardSymmetry(boardSize, boardSize), uniqueSolutions);
+	}
+
+	/**
+	 * @param boardSymmetry   the symmetries of the board the solutions were searched on
+	 * @param uniqueSolutions the canonical solutions found by the search,
+	 *                        expected to support fast random access
+	 */
+	SymmetricSolutionList(final BoardSymmetry boardSymmetry, final List<Solution> uniqueSolutions) {
+		this.boardSymmetry = boardSymmetry;
+		this.uniqueSolutions = uniqueSolutions;
+		this.expandedPartitions = null;
+		this.partitionOffsets = null;
+	}
+
+	/**
+	 * @param boardSymmetry      the symmetries of the board the solutions were searched on
+	 * @param uniqueSolutions    the canonical solutions found by the search
+	 * @param expandedPartitions the solutions deduced from consecutive
+	 *                           partitions of the unique solutions by
+	 *                           {@link #expand}, in the order of the partitions
+	 */
+	SymmetricSolutionList(final BoardSymmetry boardSymmetry, final List<Solution> uniqueSolutions,
+	                      final List<Solution[]> expandedPartitions) {
+		this.boardSymmetry = boardSymmetry;
+		this.uniqueSolutions = uniqueSolutions;
+		this.expandedPartitions = expandedPartitions;
+		this.partitionOffsets = new int[expandedPartitions.size()];
+
+		int offset = 0;
+		for (int i = 0; i < expandedPartitions.size(); i++) {
+			partitionOffsets[i] = offset;
+			offset += expandedPartitions.get(i).length / boardSymmetry.deducedSolutionCount();
+		}
+		if (offset != uniqueSolutions.size()) {
+			throw new IllegalArgumentException("The partitions are expanded from " + offset + " unique solutions, not "
+					+ uniqueSolutions.size());
+		}
+	}
+
+	/**
+	 * Deduces all the solutions from a partition of the unique solutions into
+	 * an array, ordered by the symmetry applied like the list itself.
+	 */
+	static Solution[] expand(final BoardSymmetry boardSymmetry, final List<Solution> uniqueSolutions) {
+		final Solution[] solutions = new Solution[uniqueSolutions.size() * boardSymmetry.deducedSolutionCount()];
+		int index = 0;
+		for (Symmetry symmetry : boardSymmetry.symmetries) {
+			for (Solution unique : uniqueSolutions) {
+				solutions[index++] = symmetry.apply(unique, boardSymmetry.boardWidth, boardSymmetry.boardHeight);
+			}
+		}
+		return solutions;
+	}
+
+	@Override
+	public Solution get(final int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException(index);
+		}
+
+		final int symmetryIndex = index / uniqueSolutions.size();
+		final int uniqueIndex = index % uniqueSolutions.size();
+		if (expandedPartitions != null) {
+			// The last partition starting at or before the unique solution,
+			// skipping any empty partitions starting at the same index
+			int partition = Arrays.binarySearch(partitionOffsets, uniqueIndex);
+			if (partition < 0) {
+				partition = -partition - 2;
+			}
+			while (partition + 1 < partitionOffsets.length && partitionOffsets[partition + 1] == uniqueIndex) {
+				partition++;
+			}
+			final int partitionSize = expandedPartitions.get(partition).length / boardSymmetry.deducedSolutionCount();
+			return expandedPartitions.get(partition)[symmetryIndex * partitionSize + uniqueIndex - partitionOffsets[partition]];
+		}
+
+		final Symmetry symmetry = boardSymmetry.symmetries.get(symmetryIndex);
+		final Solution unique = uniqueSolutions.get(uniqueIndex);
+		return symmetry.apply(unique, boardSymmetry.boardWidth, boardSymmetry.boardHeight);
+	}
+
+	@Override
+	public int size() {
+		return uniqueSolutions.size() * boardSymmetry.deducedSolutionCount();
+	}
+
+	public List<Solution> getUniqueSolutions() {
+		return uniqueSolutions;
+	}
+}
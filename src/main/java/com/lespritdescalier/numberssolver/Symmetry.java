@@ -0,0 +1,137 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The symmetries of a board, i.e. the ways of rotating and mirroring the board
+ * so that it covers the same cells. Any solution transformed by a symmetry of
+ * its board is also a solution.
+ * <p>
+ * A rectangular board has only the identity, the horizontal and vertical
+ * mirroring and the rotation by 180 degrees as its symmetries. A square board
+ * also has the rotations by 90 and 270 degrees and the mirroring over both
+ * diagonals.
+ */
+enum Symmetry {
+	IDENTITY(true),
+	ROTATE_90(false),
+	ROTATE_180(true),
+	ROTATE_270(false),
+	/**
+	 * Mirroring over the vertical axis, swapping east and west.
+	 */
+	MIRROR_HORIZONTALLY(true),
+	/**
+	 * Mirroring over the horizontal axis, swapping north and south.
+	 */
+	MIRROR_VERTICALLY(true),
+	/**
+	 * Mirroring over the NW-SE diagonal, as in {@link Move#mirrorDiagonally()}.
+	 */
+	MIRROR_DIAGONALLY(false),
+	/**
+	 * Mirroring over the NE-SW diagonal.
+	 */
+	MIRROR_ANTI_DIAGONALLY(false);
+
+	/**
+	 * Whether the symmetry keeps a rectangular board in place, and not only a
+	 * square one.
+	 */
+	private final boolean rectangular;
+
+	/**
+	 * The move each move is transformed to, indexed by the ordinal of the move.
+	 */
+	private final Move[] transformedMoves = new Move[Move.values().length];
+
+	static {
+		for (Symmetry symmetry : values()) {
+			for (Move move : Move.values()) {
+				symmetry.transformedMoves[move.ordinal()] = symmetry.transformMove(move);
+			}
+		}
+	}
+
+	Symmetry(final boolean rectangular) {
+		this.rectangular = rectangular;
+	}
+
+	/**
+	 * Returns the symmetries of a board of the given size, starting with the
+	 * identity. Of the symmetries that move the cells of the board the same
+	 * way (e.g. the identity and the vertical mirroring on a board of a single
+	 * row), only the first one is included.
+	 */
+	static List<Symmetry> of(final int boardWidth, final int boardHeight) {
+		final List<Symmetry> symmetries = new ArrayList<>();
+		for (Symmetry symmetry : values()) {
+			if ((symmetry.rectangular || boardWidth == boardHeight)
+					&& symmetries.stream().noneMatch(other -> other.movesCellsAs(symmetry, boardWidth, boardHeight))) {
+				symmetries.add(symmetry);
+			}
+		}
+		return symmetries;
+	}
+
+	private boolean movesCellsAs(final Symmetry other, final int boardWidth, final int boardHeight) {
+		for (int row = 0; row < boardHeight; row++) {
+			for (int col = 0; col < boardWidth; col++) {
+				final Position position = new Position(col, row);
+				if (!apply(position, boardWidth, boardHeight).equals(other.apply(position, boardWidth, boardHeight))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private Move transformMove(final Move move) {
+		return switch (this) {
+			case IDENTITY -> move;
+			case ROTATE_90 -> move.rotate();
+			case ROTATE_180 -> move.rotate().rotate();
+			case ROTATE_270 -> move.rotate().rotate().rotate();
+			case MIRROR_HORIZONTALLY -> move.mirrorHorizontally();
+			case MIRROR_VERTICALLY -> move.mirrorVertically();
+			case MIRROR_DIAGONALLY -> move.mirrorDiagonally();
+			case MIRROR_ANTI_DIAGONALLY -> move.mirrorDiagonally().rotate().rotate();
+		};
+	}
+
+	Move apply(final Move move) {
+		return transformedMoves[move.ordinal()];
+	}
+
+	/**
+	 * Returns the position the given position is moved to on a board of the
+	 * given size. The rotations by 90 and 270 degrees and the diagonal
+	 * mirroring are only valid for square boards.
+	 */
+	Position apply(final Position position, final int boardWidth, final int boardHeight) {
+		final int lastCol = boardWidth - 1;
+		final int lastRow = boardHeight - 1;
+		return switch (this) {
+			case IDENTITY -> position;
+			case ROTATE_90 -> new Position(lastCol - position.row, position.col);
+			case ROTATE_180 -> new Position(lastCol - position.col, lastRow - position.row);
+			case ROTATE_270 -> new Position(position.row, lastCol - position.col);
+			case MIRROR_HORIZONTALLY -> new Position(lastCol - position.col, position.row);
+			case MIRROR_VERTICALLY -> new Position(position.col, lastRow - position.row);
+			case MIRROR_DIAGONALLY -> new Position(position.row, position.col);
+			case MIRROR_ANTI_DIAGONALLY -> new Position(lastCol - position.row, lastCol - position.col);
+		};
+	}
+
+	Solution apply(final Solution solution, final int boardWidth, final int boardHeight) {
+		if (this == IDENTITY) {
+			return solution;
+		}
+		final List<Move> moves = new ArrayList<>(solution.moves.size());
+		for (Move move : solution.moves) {
+			moves.add(apply(move));
+		}
+		return new Solution(apply(solution.startPosition, boardWidth, boardHeight), moves);
+	}
+}
@@ -0,0 +1,135 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.List;
+
+/**
+ * Keeps the search from finding more than one solution of each set of
+ * solutions that are symmetric to each other.
+ * <p>
+ * The symmetries of the board that keep the starting cell in place map each
+ * solution from the cell to another solution from the same cell. Of each such
+ * set of solutions, the search only finds the one whose moves come first in
+ * lexicographic order (comparing the moves in the order of {@link Move}),
+ * called the canonical solution.
+ * <p>
+ * The search keeps track of the symmetries that map the path made so far to
+ * itself, as a bitmask of {@link Symmetry} ordinals. Only those symmetries
+ * can still make a continuation of the path non-canonical. When the next move
+ * is mapped to an earlier move by any of them, the path is not canonical and
+ * the branch is cut. When the next move is mapped to a later move, the path
+ * comes before its image in lexicographic order and the symmetry no longer
+ * needs to be tracked. As no symmetry other than the identity maps a whole
+ * solution to itself, each set of symmetric solutions has exactly one
+ * canonical solution.
+ */
+final class SymmetryBreaker {
+	/**
+	 * The result of following moves that don't form a canonical path.
+	 */
+	static final int NOT_CANONICAL = -1;
+
+	/**
+	 * The symmetries mapping each move to an earlier move, indexed by the
+	 * ordinal of the move.
+	 */
+	private static final int[] EARLIER_IMAGE_MASKS = new int[Move.values().length];
+
+	/**
+	 * The symmetries mapping each move to itself, indexed by the ordinal of
+	 * the move.
+	 */
+	private static final int[] SAME_IMAGE_MASKS = new int[Move.values().length];
+
+	static {
+		for (Move move : Move.values()) {
+			for (Symmetry symmetry : Symmetry.values()) {
+				final int image = symmetry.apply(move).ordinal();
+				if (image < move.ordinal()) {
+					EARLIER_IMAGE_MASKS[move.ordinal()] |= mask(symmetry);
+				} else if (image == move.ordinal()) {
+					SAME_IMAGE_MASKS[move.ordinal()] |= mask(symmetry);
+				}
+			}
+		}
+	}
+
+	private SymmetryBreaker() {
+	}
+
+	private static int mask(final Symmetry symmetry) {
+		return 1 << symmetry.ordinal();
+	}
+
+	/**
+	 * Returns the symmetries of the board, other than the identity, that keep
+	 * the given starting cell in place. These are the symmetries mapping the
+	 * empty path from the cell to itself.
+	 */
+	static int stabilizer(final Position startPosition, final int boardWidth, final int boardHeight) {
+		return stabilizer(startPosition, boardWidth, boardHeight, Symmetry.of(boardWidth, boardHeight));
+	}
+
+	/**
+	 * Returns the symmetries of the board preserved by the move rules of the
+	 * given successor table, other than the identity, that keep the given
+	 * starting cell in place.
+	 */
+	static int stabilizer(final Position startPosition, final SuccessorTable successors) {
+		return stabilizer(startPosition, successors.boardWidth, successors.boardHeight, successors.symmetries);
+	}
+
+	/**
+	 * Returns the given symmetries, other than the identity, that keep the
+	 * given starting cell in place. Used when only some of the symmetries of
+	 * the board map the solutions to each other.
+	 */
+	static int stabilizer(final Position startPosition, final int boardWidth, final int boardHeight, final List<Symmetry> symmetries) {
+		int stabilizer = 0;
+		for (Symmetry symmetry : symmetries) {
+			if (symmetry != Symmetry.IDENTITY && symmetry.apply(startPosition, boardWidth, boardHeight).equals(startPosition)) {
+				stabilizer |= mask(symmetry);
+			}
+		}
+		return stabilizer;
+	}
+
+	/**
+	 * Tells whether continuing a canonical path with the given move keeps it
+	 * canonical.
+	 *
+	 * @param fixingSymmetries the symmetries mapping the path to itself
+	 * @param move             the next move
+	 */
+	static boolean isCanonical(final int fixingSymmetries, final Move move) {
+		return (fixingSymmetries & EARLIER_IMAGE_MASKS[move.ordinal()]) == 0;
+	}
+
+	/**
+	 * Returns the symmetries mapping a path to itself after continuing the
+	 * path with the given move, assuming the continued path is canonical.
+	 *
+	 * @param fixingSymmetries the symmetries mapping the path to itself before the move
+	 * @param move             the next move
+	 */
+	static int fixingSymmetriesAfter(final int fixingSymmetries, final Move move) {
+		return fixingSymmetries & SAME_IMAGE_MASKS[move.ordinal()];
+	}
+
+	/**
+	 * Returns the symmetries mapping a path to itself after following the
+	 * given moves, or {@link #NOT_CANONICAL} if the moves make the path non-canonical.
+	 *
+	 * @param fixingSymmetries the symmetries mapping the path to itself before the moves
+	 * @param moves            the moves to follow
+	 */
+	static int fixingSymmetriesAfter(final int fixingSymmetries, final List<Move> moves) {
+		int fixing = fixingSymmetries;
+		for (Move move : moves) {
+			if (!isCanonical(fixing, move)) {
+				return NOT_CANONICAL;
+			}
+			fixing = fixingSymmetriesAfter(fixing, move);
+		}
+		return fixing;
+	}
+}
@@ -0,0 +1,38 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.List;
+
+/**
+ * The time it took to search one subtree of the search, used to see how
+ * evenly the work was spread between the tasks.
+ */
+public class TaskTiming {
+	public final Position startPosition;
+	public final List<Move> movePrefix;
+	public final long durationNanos;
+	public final long solutions;
+
+	public TaskTiming(final Position startPosition, final List<Move> movePrefix, final long durationNanos, final long solutions) {
+		this.startPosition = startPosition;
+		this.movePrefix = movePrefix;
+		this.durationNanos = durationNanos;
+		this.solutions = solutions;
+	}
+
+	public long getDurationMillis() {
+		return durationNanos / 1_000_000;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(startPosition);
+
+		for (Move move : movePrefix) {
+			sb.append(move);
+		}
+
+		sb.append(String.format(": %d ms, %d solutions", getDurationMillis(), solutions));
+		return sb.toString();
+	}
+}
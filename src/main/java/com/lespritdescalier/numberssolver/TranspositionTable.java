@@ -0,0 +1,110 @@
+package com.lespritdescalier.numberssolver;
+
+/**
+ * A fixed-size cache of the number of ways to complete a partial path, used
+ * when only counting the solutions. Different paths covering the same cells
+ * and ending in the same cell can be completed in exactly the same ways, so
+ * the subtree of the search below such a state only needs to be searched once.
+ * <p>
+ * The states are stored in buckets of two entries. The first entry of a bucket
+ * keeps the state with the most cells left to cover, as its subtree is the
+ * most expensive to search again, and the second entry always gets the latest
+ * state that didn't replace the first one.
+ * <p>
+ * A table is not thread-safe. As the counts don't depend on the starting point
+ * or the rest of the path, a table can be shared by any number of searches on
+ * the same board run one after another.
+ */
+public class TranspositionTable {
+	static final long NOT_FOUND = -1;
+
+	private final int bucketMask;
+
+	/**
+	 * The occupied cells of each entry, split to the lower and higher 64 cells
+	 * of the board.
+	 */
+	private final long[] occupiedLow;
+	private final long[] occupiedHigh;
+
+	/**
+	 * The current cell of each entry plus one, so that zero marks an empty entry.
+	 */
+	private final int[] currentCells;
+	private final int[] remainingCells;
+	private final long[] counts;
+
+	private long lookups;
+	private long hits;
+
+	/**
+	 * @param capacity the maximum number of stored states, rounded down to a power of two
+	 */
+	TranspositionTable(final int capacity) {
+		final int buckets = Math.max(Integer.highestOneBit(capacity) / 2, 1);
+		bucketMask = buckets - 1;
+		occupiedLow = new long[2 * buckets];
+		occupiedHigh = new long[2 * buckets];
+		currentCells = new int[2 * buckets];
+		remainingCells = new int[2 * buckets];
+		counts = new long[2 * buckets];
+	}
+
+	private int firstEntry(final long low, final long high, final int currentCell) {
+		long hash = low * 0x9e3779b97f4a7c15L + high * 0xc2b2ae3d27d4eb4fL + currentCell;
+		hash ^= hash >>> 31;
+		hash *= 0xbf58476d1ce4e5b9L;
+		hash ^= hash >>> 29;
+		return 2 * ((int) hash & bucketMask);
+	}
+
+	private boolean matches(final int entry, final long low, final long high, final int currentCell) {
+		return currentCells[entry] == currentCell + 1 && occupiedLow[entry] == low && occupiedHigh[entry] == high;
+	}
+
+	/**
+	 * Returns the number of ways to complete a path covering the given cells
+	 * and ending in the given cell.
+	 *
+	 * @return the stored count, or {@link #NOT_FOUND} if the state isn't stored
+	 */
+	long get(final long low, final long high, final int currentCell) {
+		lookups++;
+		final int entry = firstEntry(low, high, currentCell);
+		if (matches(entry, low, high, currentCell)) {
+			hits++;
+			return counts[entry];
+		}
+		if (matches(entry + 1, low, high, currentCell)) {
+			hits++;
+			return counts[entry + 1];
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Stores the number of ways to complete a path covering the given cells
+	 * and ending in the given cell.
+	 *
+	 * @param remaining the number of cells left to cover from the state
+	 */
+	void put(final long low, final long high, final int currentCell, final int remaining, final long count) {
+		int entry = firstEntry(low, high, currentCell);
+		if (currentCells[entry] != 0 && remaining < remainingCells[entry]) {
+			entry++;
+		}
+		occupiedLow[entry] = low;
+		occupiedHigh[entry] = high;
+		currentCells[entry] = currentCell + 1;
+		remainingCells[entry] = remaining;
+		counts[entry] = count;
+	}
+
+	long getLookups() {
+		return lookups;
+	}
+
+	long getHits() {
+		return hits;
+	}
+}
@@ -0,0 +1,132 @@
+package com.lespritdescalier.numberssolver;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A depth-first search for the first solutions from a single cell, for when
+ * only some solutions are wanted instead of all of them. The moves from each
+ * cell are attempted in the order of Warnsdorff's rule: the move to the cell
+ * with the fewest unoccupied cells reachable from it first, as such cells
+ * would otherwise be the first to become impossible to reach. Ties are broken
+ * by the usual order of the moves.
+ * <p>
+ * The search skips the same symmetric paths and dead ends as the other
+ * solvers, so it finds the same solutions, only in a different order. It
+ * stops as soon as its stop condition holds, e.g. when the search of any
+ * starting point has found enough solutions for {@link FirstSolutions}.
+ * As the moves aren't attempted in their usual order, a count can't be
+ * resumed from a checkpoint.
+ * <p>
+ * Unlike the other bitboard solvers, the search supports
+ * {@link PuzzleConstraints}, as finding the first solutions is often the
+ * only feasible query on the boards the constraints are used on.
+ */
+class WarnsdorffSolverForStartingPoint extends AbstractBitboardSolver {
+	/**
+	 * The indices of the moves to attempt at each depth, in the order they
+	 * are attempted, and the number of unoccupied cells reachable from the
+	 * cell each move leads to.
+	 */
+	private final int[][] orderedMoveIndices;
+	private final int[][] onwardDegrees;
+
+	private BooleanSupplier stopCondition = () -> false;
+
+	/**
+	 * Creates a solver that searches only the solutions starting with the
+	 * given moves and keeping the fixed numbers of the given constraints in
+	 * their cells. The moves are expected to form a valid path on the board.
+	 *
+	 * @param constraints the numbers fixed to given cells, or null for none
+	 */
+	WarnsdorffSolverForStartingPoint(final Position startPosition, final SuccessorTable successors, final List<Move> movePrefix,
+									 final PuzzleConstraints constraints) {
+		super("Warnsdorff", startPosition, successors, movePrefix, constraints);
+		orderedMoveIndices = new int[moves.length][Move.values().length];
+		onwardDegrees = new int[moves.length][Move.values().length];
+	}
+
+	/**
+	 * Orders the possible moves from the current cell by Warnsdorff's rule.
+	 *
+	 * @return the number of possible moves
+	 */
+	private int orderMoves(final int depth, final int currentCell, final int fixingSymmetries) {
+		final Move[] movesToAttempt = movesByCell[currentCell];
+		final int[] targets = targetsByCell[currentCell];
+		final int[] order = orderedMoveIndices[depth];
+		final int[] degrees = onwardDegrees[depth];
+
+		int count = 0;
+		for (int i = 0; i < targets.length; i++) {
+			if (isOccupied(targets[i]) || !SymmetryBreaker.isCanonical(fixingSymmetries, movesToAttempt[i])
+					|| !meetsConstraints(depth + 2, targets[i])) {
+				continue;
+			}
+
+			// Insertion sort, keeping the moves with equal degrees in their original order
+			final int degree = unoccupiedNeighbours(targets[i]);
+			int j = count++;
+			while (j > 0 && degrees[j - 1] > degree) {
+				order[j] = order[j - 1];
+				degrees[j] = degrees[j - 1];
+				j--;
+			}
+			order[j] = i;
+			degrees[j] = degree;
+		}
+		return count;
+	}
+
+	@Override
+	void searchFrom(final int depth, final int currentCell, final int fixingSymmetries) {
+		findNextMove(depth, currentCell, fixingSymmetries);
+	}
+
+	/**
+	 * @param fixingSymmetries the symmetries mapping the path made so far to
+	 *                         itself, as tracked by {@link SymmetryBreaker}
+	 */
+	private void findNextMove(final int depth, final int currentCell, final int fixingSymmetries) {
+		if (progressRecorder != null) {
+			progressRecorder.nodeVisited(depth);
+		}
+
+		final int moveCount = orderMoves(depth, currentCell, fixingSymmetries);
+		for (int k = 0; k < moveCount && !stopCondition.getAsBoolean(); k++) {
+			final int i = orderedMoveIndices[depth][k];
+			final int target = targetsByCell[currentCell][i];
+			final Move move = movesByCell[currentCell][i];
+
+			moves[depth] = move;
+			toggle(target);
+			pruner.occupy(target);
+
+			if (depth + 1 == moves.length) {
+				addFoundSolution();
+			} else if (!pruner.isDeadEnd(target)) {
+				findNextMove(depth + 1, target, SymmetryBreaker.fixingSymmetriesAfter(fixingSymmetries, move));
+			}
+
+			pruner.release(target);
+			toggle(target);
+		}
+	}
+
+	/**
+	 * Not supported, as the moves aren't attempted in the order the
+	 * checkpoint stores the path of the count in.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public SolutionCount countSolutions(final SearchCheckpoint.Entry checkpointEntry, final int updateInterval) {
+		throw new UnsupportedOperationException("Warnsdorff search doesn't resume counts");
+	}
+
+	@Override
+	public void setStopCondition(final BooleanSupplier stopCondition) {
+		this.stopCondition = stopCondition;
+	}
+}
@@ -0,0 +1,404 @@
+package com.lespritdescalier.numberssolver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A queue of {@link WorkUnit}s in a directory shared by a coordinator and any
+ * number of worker processes, for distributing a search over several JVMs on
+ * the same host. The coordinator writes the units and merges their results,
+ * and each worker repeatedly claims a unit, searches it and stores its result.
+ * <p>
+ * Each unit is a file that moves between the subdirectories of the queue:
+ * <ul>
+ *     <li>{@code pending}: waiting to be claimed,</li>
+ *     <li>{@code claimed}: being searched by a worker, which touches the file
+ *     while it's searching to renew its lease of the unit,</li>
+ *     <li>{@code results}: the counts of the unit, and its unique solutions when
+ *     searching for them, once the unit has been searched, or the error of
+ *     the unit if its search failed.</li>
+ * </ul>
+ * A unit is claimed by atomically moving its file from {@code pending} to
+ * {@code claimed}, so only one worker gets each unit. If a worker dies, its
+ * leases run out, and the coordinator moves the units back to {@code pending}
+ * for the other workers. A worker thought to be lost may still finish its
+ * unit afterwards, but the results of a unit are the same whoever searches it,
+ * so the results stored last simply replace the earlier ones.
+ * <p>
+ * The results are written under a temporary name and then renamed, like the
+ * files of {@link SearchCheckpoint}, so a unit is only complete once its file
+ * of counts exists.
+ */
+public class WorkQueue {
+	/**
+	 * What the workers search in each unit.
+	 */
+	public enum Mode {
+		/**
+		 * Count the solutions of each unit.
+		 */
+		COUNT,
+
+		/**
+		 * Write the unique solutions of each unit to a file, and count them.
+		 */
+		SOLUTIONS
+	}
+
+	public static final Duration DEFAULT_LEASE = Duration.ofSeconds(30);
+
+	private static final String JOB_FILE = "job.properties";
+	private static final String FINISHED_FILE = "finished";
+	private static final String PENDING_DIR = "pending";
+	private static final String CLAIMED_DIR = "claimed";
+	private static final String RESULTS_DIR = "results";
+	private static final String COUNTS_SUFFIX = ".counts";
+	private static final String SOLUTIONS_SUFFIX = ".solutions";
+	private static final String FAILURE_SUFFIX = ".failed";
+
+	private static final String BOARD_WIDTH_KEY = "boardWidth";
+	private static final String BOARD_HEIGHT_KEY = "boardHeight";
+	private static final String ENGINE_KEY = "engine";
+	private static final String MODE_KEY = "mode";
+	private static final String LEASE_KEY = "leaseMillis";
+	private static final String UNIT_COUNT_KEY = "units";
+	private static final String UNIT_KEY = "unit";
+	private static final String COUNTS_KEY = "counts";
+	private static final String ERROR_KEY = "error";
+
+	private final Logger logger = LogManager.getLogger(WorkQueue.class);
+
+	private final Path directory;
+	public final int boardWidth;
+	public final int boardHeight;
+	public final SearchEngine searchEngine;
+	public final Mode mode;
+
+	/**
+	 * How long a claimed unit is kept by a worker without the worker renewing
+	 * its lease.
+	 */
+	public final Duration lease;
+
+	private final int unitCount;
+
+	private WorkQueue(final Path directory, final int boardWidth, final int boardHeight, final SearchEngine searchEngine,
+					  final Mode mode, final Duration lease, final int unitCount) {
+		this.directory = directory;
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.searchEngine = searchEngine;
+		this.mode = mode;
+		this.lease = lease;
+		this.unitCount = unitCount;
+	}
+
+	/**
+	 * Creates a queue of the given units in the given directory. The
+	 * description of the search is written last, so the workers waiting for
+	 * the queue only see it once all the units are pending.
+	 *
+	 * @param directory an empty or nonexistent directory
+	 * @throws IllegalStateException if the directory already has a queue
+	 */
+	static WorkQueue create(final Path directory, final int boardWidth, final int boardHeight, final SearchEngine searchEngine,
+							final Mode mode, final Duration lease, final List<WorkUnit> units) {
+		if (Files.exists(directory.resolve(JOB_FILE))) {
+			throw new IllegalStateException("Directory " + directory + " already has a work queue");
+		}
+
+		final WorkQueue queue = new WorkQueue(directory, boardWidth, boardHeight, searchEngine, mode, lease, units.size());
+		try {
+			Files.createDirectories(queue.pendingDir());
+			Files.createDirectories(queue.claimedDir());
+			Files.createDirectories(queue.resultsDir());
+			for (WorkUnit unit : units) {
+				Files.writeString(queue.pendingDir().resolve(unit.id), unit.toKey(), StandardCharsets.UTF_8);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		final Properties job = new Properties();
+		job.setProperty(BOARD_WIDTH_KEY, Integer.toString(boardWidth));
+		job.setProperty(BOARD_HEIGHT_KEY, Integer.toString(boardHeight));
+		job.setProperty(ENGINE_KEY, searchEngine.name());
+		job.setProperty(MODE_KEY, mode.name());
+		job.setProperty(LEASE_KEY, Long.toString(lease.toMillis()));
+		job.setProperty(UNIT_COUNT_KEY, Integer.toString(units.size()));
+		writeAtomically(directory.resolve(JOB_FILE), job, "Number puzzle solver work queue");
+		return queue;
+	}
+
+	/**
+	 * Opens a queue created by a coordinator.
+	 *
+	 * @return the queue, or nothing if the directory doesn't have a queue yet
+	 */
+	public static Optional<WorkQueue> open(final Path directory) {
+		final Path jobFile = directory.resolve(JOB_FILE);
+		if (!Files.exists(jobFile)) {
+			return Optional.empty();
+		}
+
+		final Properties job = read(jobFile);
+		return Optional.of(new WorkQueue(directory,
+				Integer.parseInt(job.getProperty(BOARD_WIDTH_KEY)),
+				Integer.parseInt(job.getProperty(BOARD_HEIGHT_KEY)),
+				SearchEngine.valueOf(job.getProperty(ENGINE_KEY)),
+				Mode.valueOf(job.getProperty(MODE_KEY)),
+				Duration.ofMillis(Long.parseLong(job.getProperty(LEASE_KEY))),
+				Integer.parseInt(job.getProperty(UNIT_COUNT_KEY))));
+	}
+
+	private Path pendingDir() {
+		return directory.resolve(PENDING_DIR);
+	}
+
+	private Path claimedDir() {
+		return directory.resolve(CLAIMED_DIR);
+	}
+
+	private Path resultsDir() {
+		return directory.resolve(RESULTS_DIR);
+	}
+
+	private static List<String> list(final Path dir) {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Claims a pending unit for searching it.
+	 *
+	 * @return the unit, or nothing if no unit is pending
+	 */
+	Optional<WorkUnit> claim() {
+		for (String id : list(pendingDir())) {
+			final Path claimed = claimedDir().resolve(id);
+			try {
+				Files.move(pendingDir().resolve(id), claimed, StandardCopyOption.ATOMIC_MOVE);
+				Files.setLastModifiedTime(claimed, FileTime.fromMillis(System.currentTimeMillis()));
+				return Optional.of(WorkUnit.parse(id, Files.readString(claimed, StandardCharsets.UTF_8)));
+			} catch (NoSuchFileException | FileAlreadyExistsException e) {
+				// Claimed by another worker first
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Renews the lease of a claimed unit, telling the coordinator that the
+	 * worker searching it is still alive.
+	 */
+	void renew(final WorkUnit unit) {
+		try {
+			Files.setLastModifiedTime(claimedDir().resolve(unit.id), FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (NoSuchFileException e) {
+			// The unit has been given to another worker, but its results are
+			// still accepted from this one
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the temporary file a worker writes the unique solutions of a
+	 * unit to before completing the unit. Each worker searching the same unit
+	 * gets a file of its own.
+	 */
+	Path solutionFileFor(final WorkUnit unit, final String workerId) {
+		return resultsDir().resolve(unit.id + SOLUTIONS_SUFFIX + "." + workerId + ".tmp");
+	}
+
+	/**
+	 * Stores the results of a unit and removes it from the claimed units.
+	 *
+	 * @param count        the number of unique solutions found in the unit
+	 * @param solutionFile the file the unique solutions of the unit were
+	 *                     written to, or null when only counting them
+	 */
+	void complete(final WorkUnit unit, final SolutionCount count, final Path solutionFile) {
+		try {
+			if (solutionFile != null) {
+				Files.move(solutionFile, resultsDir().resolve(unit.id + SOLUTIONS_SUFFIX),
+						StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			final Properties result = new Properties();
+			result.setProperty(UNIT_KEY, unit.toKey());
+			result.setProperty(COUNTS_KEY, count.toCountsString());
+			writeAtomically(resultsDir().resolve(unit.id + COUNTS_SUFFIX), result, unit.id);
+			Files.deleteIfExists(claimedDir().resolve(unit.id));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Stores the error of a unit whose search failed and removes it from the
+	 * claimed units. The unit isn't dispatched again, as the search would
+	 * most likely fail the same way on any worker, and the coordinator gives
+	 * up the search instead.
+	 */
+	void fail(final WorkUnit unit, final Throwable error) {
+		final Properties failure = new Properties();
+		failure.setProperty(UNIT_KEY, unit.toKey());
+		failure.setProperty(ERROR_KEY, String.valueOf(error));
+		writeAtomically(resultsDir().resolve(unit.id + FAILURE_SUFFIX), failure, unit.id);
+		try {
+			Files.deleteIfExists(claimedDir().resolve(unit.id));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns a description of each unit whose search has failed, with the
+	 * error of the unit, in the order of the units.
+	 */
+	List<String> getFailures() {
+		final List<String> failures = new ArrayList<>();
+		for (String name : list(resultsDir())) {
+			if (name.endsWith(FAILURE_SUFFIX)) {
+				final Properties failure = read(resultsDir().resolve(name));
+				failures.add(failure.getProperty(UNIT_KEY) + ": " + failure.getProperty(ERROR_KEY));
+			}
+		}
+		return failures;
+	}
+
+	private boolean isComplete(final String id) {
+		return Files.exists(resultsDir().resolve(id + COUNTS_SUFFIX));
+	}
+
+	/**
+	 * Moves the claimed units whose lease has run out back to the pending
+	 * units, so that another worker can search them.
+	 *
+	 * @return the number of units moved back
+	 */
+	int requeueExpired() {
+		final long expiredBefore = System.currentTimeMillis() - lease.toMillis();
+		int requeued = 0;
+		for (String id : list(claimedDir())) {
+			final Path claimed = claimedDir().resolve(id);
+			try {
+				if (isComplete(id) || Files.exists(resultsDir().resolve(id + FAILURE_SUFFIX))) {
+					Files.deleteIfExists(claimed);
+				} else if (Files.getLastModifiedTime(claimed).toMillis() < expiredBefore) {
+					Files.move(claimed, pendingDir().resolve(id), StandardCopyOption.ATOMIC_MOVE);
+					logger.warn("Lease of {} ran out, dispatching it again", id);
+					requeued++;
+				}
+			} catch (NoSuchFileException e) {
+				// Completed or requeued meanwhile
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return requeued;
+	}
+
+	/**
+	 * Returns the number of units with stored results.
+	 */
+	int completedCount() {
+		return (int) list(resultsDir()).stream().filter(name -> name.endsWith(COUNTS_SUFFIX)).count();
+	}
+
+	int unitCount() {
+		return unitCount;
+	}
+
+	/**
+	 * Returns the counts stored for each completed unit, in the order of the
+	 * units.
+	 */
+	List<SolutionCount> getCounts() {
+		final List<SolutionCount> counts = new ArrayList<>();
+		for (String name : list(resultsDir())) {
+			if (name.endsWith(COUNTS_SUFFIX)) {
+				final Properties result = read(resultsDir().resolve(name));
+				final String key = result.getProperty(UNIT_KEY);
+				counts.add(SolutionCount.parse(SearchCheckpoint.positionFromKey(key), result.getProperty(COUNTS_KEY)));
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the files of the unique solutions of each completed unit, in the
+	 * order of the units.
+	 */
+	List<Path> getSolutionFiles() {
+		return list(resultsDir()).stream()
+				.filter(name -> name.endsWith(SOLUTIONS_SUFFIX))
+				.map(resultsDir()::resolve)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Marks the search finished, telling the workers to stop.
+	 */
+	void finish() {
+		try {
+			Files.writeString(directory.resolve(FINISHED_FILE), "", StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	boolean isFinished() {
+		return Files.exists(directory.resolve(FINISHED_FILE));
+	}
+
+	/**
+	 * Writes a file under a unique temporary name and then renames it, so
+	 * that two workers completing the same unit don't write the same file.
+	 */
+	private static void writeAtomically(final Path file, final Properties properties, final String comment) {
+		try {
+			final Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+				properties.store(writer, comment);
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static Properties read(final Path file) {
+		final Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return properties;
+	}
+}
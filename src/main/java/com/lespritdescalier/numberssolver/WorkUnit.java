@@ -0,0 +1,89 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A part of the search handed out to a worker of a distributed search: the
+ * solutions from a starting point beginning with the given moves. This is the
+ * same split of the search as made by {@link SubtreeSearchTask}, only made up
+ * front so that the parts can be written to a {@link WorkQueue}.
+ */
+class WorkUnit {
+	/**
+	 * The identifier of the unit within its queue, also used as the name of
+	 * its files.
+	 */
+	final String id;
+	final Position startPosition;
+	final List<Move> movePrefix;
+
+	WorkUnit(final String id, final Position startPosition, final List<Move> movePrefix) {
+		this.id = id;
+		this.startPosition = startPosition;
+		this.movePrefix = ImmutableList.copyOf(movePrefix);
+	}
+
+	/**
+	 * Splits the search from the given starting points into units fixing the
+	 * given number of first moves, or all the moves of a path covering the
+	 * whole board in fewer moves. Only the paths canonical with respect to the
+	 * symmetries preserved by the moves are included, so the units together
+	 * find the same solutions as searching each starting point as a whole.
+	 *
+	 * @param splitDepth the number of first moves fixed for each unit
+	 */
+	static List<WorkUnit> split(final List<Position> startingPoints, final SuccessorTable successors, final int splitDepth) {
+		final List<WorkUnit> units = new ArrayList<>();
+		for (Position startPosition : startingPoints) {
+			final int startCell = successors.getCellIndex(startPosition);
+			final Set<Integer> visited = new HashSet<>();
+			visited.add(startCell);
+			addUnits(units, successors, startPosition, new ArrayList<>(), startCell, visited,
+					SymmetryBreaker.stabilizer(startPosition, successors), splitDepth);
+		}
+		return units;
+	}
+
+	private static void addUnits(final List<WorkUnit> units, final SuccessorTable successors, final Position startPosition,
+								 final List<Move> movePrefix, final int currentCell, final Set<Integer> visited,
+								 final int fixingSymmetries, final int splitDepth) {
+		if (movePrefix.size() >= splitDepth || visited.size() == successors.cellCount) {
+			units.add(new WorkUnit(String.format("unit-%06d", units.size()), startPosition, movePrefix));
+			return;
+		}
+
+		for (Move move : successors.movesByCell[currentCell]) {
+			final int target = successors.target(currentCell, move);
+			if (!visited.contains(target) && SymmetryBreaker.isCanonical(fixingSymmetries, move)) {
+				movePrefix.add(move);
+				visited.add(target);
+				addUnits(units, successors, startPosition, movePrefix, target, visited,
+						SymmetryBreaker.fixingSymmetriesAfter(fixingSymmetries, move), splitDepth);
+				visited.remove(target);
+				movePrefix.remove(movePrefix.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the unit in the format of its file in a {@link WorkQueue}.
+	 */
+	String toKey() {
+		return SearchCheckpoint.taskKey(startPosition, movePrefix);
+	}
+
+	static WorkUnit parse(final String id, final String key) {
+		return new WorkUnit(id, SearchCheckpoint.positionFromKey(key),
+				SearchCheckpoint.movesFromString(key.substring(key.indexOf('/') + 1)));
+	}
+
+	@Override
+	public String toString() {
+		return id + " (" + toKey() + ")";
+	}
+}
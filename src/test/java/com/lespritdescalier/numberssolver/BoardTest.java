@@ -117,4 +117,19 @@ public class BoardTest {
 			}
 		}
 	}
+
+	@Test
+	public void rectangularBoardIsFullWhenAllCellsAreOccupied() {
+		final Board rectangularBoard = new Board(3, 2);
+		Assertions.assertTrue(rectangularBoard.isPositionOutOfBounds(new Position(0, 2)));
+		Assertions.assertFalse(rectangularBoard.isPositionOutOfBounds(new Position(2, 1)));
+
+		int number = 1;
+		for (int row = 0; row < rectangularBoard.height; row++) {
+			for (int col = 0; col < rectangularBoard.width; col++) {
+				rectangularBoard.addNumber(new Position(col, row), number++);
+			}
+		}
+		Assertions.assertTrue(rectangularBoard.isFull());
+	}
 }
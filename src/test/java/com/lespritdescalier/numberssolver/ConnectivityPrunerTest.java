@@ -0,0 +1,52 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConnectivityPrunerTest {
+	// A path of four cells: 0 - 1 - 2 - 3
+	private static final int[][] PATH_NEIGHBOURS = {{1}, {0, 2}, {1, 3}, {2}};
+
+	// A star of four cells: 1, 2 and 3 are all connected to 0 only
+	private static final int[][] STAR_NEIGHBOURS = {{1, 2, 3}, {0}, {0}, {0}};
+
+	@Test
+	public void pathCoveringRemainingCellsIsNotDeadEnd() {
+		ConnectivityPruner pruner = new ConnectivityPruner(PATH_NEIGHBOURS);
+		pruner.occupy(0);
+		Assertions.assertFalse(pruner.isDeadEnd(0));
+	}
+
+	@Test
+	public void unreachableCellIsDeadEnd() {
+		ConnectivityPruner pruner = new ConnectivityPruner(PATH_NEIGHBOURS);
+		pruner.occupy(1);
+		Assertions.assertTrue(pruner.isDeadEnd(1));
+	}
+
+	@Test
+	public void twoCellsThatMustEndThePathAreDeadEnd() {
+		ConnectivityPruner pruner = new ConnectivityPruner(STAR_NEIGHBOURS);
+		pruner.occupy(1);
+		pruner.occupy(0);
+		Assertions.assertTrue(pruner.isDeadEnd(0));
+	}
+
+	@Test
+	public void releasedCellsAreCountedAgain() {
+		ConnectivityPruner pruner = new ConnectivityPruner(PATH_NEIGHBOURS);
+		pruner.occupy(1);
+		pruner.release(1);
+		pruner.occupy(0);
+		Assertions.assertFalse(pruner.isDeadEnd(0));
+	}
+
+	@Test
+	public void fullBoardIsNotDeadEnd() {
+		ConnectivityPruner pruner = new ConnectivityPruner(PATH_NEIGHBOURS);
+		for (int cell = 0; cell < PATH_NEIGHBOURS.length; cell++) {
+			pruner.occupy(cell);
+		}
+		Assertions.assertFalse(pruner.isDeadEnd(3));
+	}
+}
@@ -0,0 +1,48 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class MoveRulesTest {
+
+	@Test
+	public void defaultRulesAreMovesOfPuzzle() {
+		for (Move move : Move.values()) {
+			Assertions.assertEquals(move.colChange, MoveRules.DEFAULT.colChange(move), move.name());
+			Assertions.assertEquals(move.rowChange, MoveRules.DEFAULT.rowChange(move), move.name());
+		}
+		Assertions.assertTrue(MoveRules.DEFAULT.isReversible());
+	}
+
+	@Test
+	public void defaultRulesPreserveAllSymmetries() {
+		Assertions.assertEquals(Symmetry.of(6, 6), MoveRules.DEFAULT.preservedSymmetries(6, 6));
+		Assertions.assertEquals(Symmetry.of(4, 5), MoveRules.DEFAULT.preservedSymmetries(4, 5));
+	}
+
+	@Test
+	public void knightMovesPreserveOnlyRotations() {
+		Assertions.assertEquals(
+				List.of(Symmetry.IDENTITY, Symmetry.ROTATE_90, Symmetry.ROTATE_180, Symmetry.ROTATE_270),
+				MoveRules.knight().preservedSymmetries(5, 5));
+		Assertions.assertEquals(List.of(Symmetry.IDENTITY, Symmetry.ROTATE_180), MoveRules.knight().preservedSymmetries(4, 5));
+		Assertions.assertTrue(MoveRules.knight().isReversible());
+	}
+
+	@Test
+	public void missingMoveBreaksSymmetriesMovingIt() {
+		final MoveRules rules = MoveRules.DEFAULT.without(Move.NW);
+		Assertions.assertFalse(rules.allows(Move.NW));
+		Assertions.assertFalse(rules.isReversible());
+		Assertions.assertEquals(List.of(Symmetry.IDENTITY, Symmetry.MIRROR_DIAGONALLY), rules.preservedSymmetries(5, 5));
+		Assertions.assertEquals(List.of(Symmetry.IDENTITY), rules.preservedSymmetries(4, 5));
+	}
+
+	@Test
+	public void rulesWithoutMovesOrWithSameMoveTwiceAreRejected() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> MoveRules.straightAndDiagonal(0, 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> MoveRules.DEFAULT.with(Move.NE, 3, 0));
+	}
+}
@@ -109,4 +109,18 @@ public class MoveTest {
 	public void rotatingDiagonalMoveReturnsMoveRotatedBy90Degrees() {
 		Assertions.assertEquals(Move.NW, Move.SW.rotate());
 	}
+
+	@Test
+	public void mirroringMoveHorizontallySwapsEastAndWest() {
+		Assertions.assertEquals(Move.NW, Move.NE.mirrorHorizontally());
+		Assertions.assertEquals(Move.E, Move.W.mirrorHorizontally());
+		Assertions.assertEquals(Move.S, Move.S.mirrorHorizontally());
+	}
+
+	@Test
+	public void mirroringMoveVerticallySwapsNorthAndSouth() {
+		Assertions.assertEquals(Move.SE, Move.NE.mirrorVertically());
+		Assertions.assertEquals(Move.N, Move.S.mirrorVertically());
+		Assertions.assertEquals(Move.W, Move.W.mirrorVertically());
+	}
 }
@@ -3,9 +3,15 @@ package com.lespritdescalier.numberssolver;
 import com.google.common.collect.ImmutableList;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class PuzzlerSolverTest {
@@ -16,6 +22,306 @@ public class PuzzlerSolverTest {
 		Assertions.assertEquals(12400, solver.getSolutions().size());
 	}
 
+	@Test
+	public void bitboardEngineFindsSameSolutionsAsBoardEngine() {
+		final PuzzleSolver boardSolver = new PuzzleSolver(5, SearchEngine.BOARD);
+		boardSolver.findSolutions();
+		final PuzzleSolver bitboardSolver = new PuzzleSolver(5, SearchEngine.BITBOARD);
+		bitboardSolver.findSolutions();
+
+		Assertions.assertEquals(boardSolver.getSolutions(), bitboardSolver.getSolutions());
+	}
+
+	@Test
+	public void countingSolutionsGivesSameCountsAsFindingThem() {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+		final PuzzleSolver counter = new PuzzleSolver(5);
+		counter.countSolutions();
+
+		Assertions.assertEquals(12400, counter.getSolutionCount());
+		Assertions.assertTrue(counter.getSolutions().isEmpty());
+		Assertions.assertEquals(finder.getSolutionsByStartingPoint(), counter.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void bitboardEngineCountsSameSolutionsAsBoardEngine() {
+		final PuzzleSolver boardCounter = new PuzzleSolver(5, SearchEngine.BOARD);
+		boardCounter.countSolutions();
+		final PuzzleSolver bitboardCounter = new PuzzleSolver(5, SearchEngine.BITBOARD);
+		bitboardCounter.countSolutions();
+
+		Assertions.assertEquals(boardCounter.getSolutionsByStartingPoint(), bitboardCounter.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void iterativeEngineFindsSameSolutionsAsBoardEngine() {
+		final PuzzleSolver boardSolver = new PuzzleSolver(5, SearchEngine.BOARD);
+		boardSolver.findSolutions();
+		final PuzzleSolver iterativeSolver = new PuzzleSolver(5, SearchEngine.ITERATIVE);
+		iterativeSolver.findSolutions();
+
+		Assertions.assertEquals(boardSolver.getSolutions(), iterativeSolver.getSolutions());
+	}
+
+	@Test
+	public void iterativeEngineCountsSameSolutionsAsBoardEngine() {
+		final PuzzleSolver boardCounter = new PuzzleSolver(5, 6, SearchEngine.BOARD);
+		boardCounter.countSolutions();
+		final PuzzleSolver iterativeCounter = new PuzzleSolver(5, 6, SearchEngine.ITERATIVE);
+		iterativeCounter.setTranspositionTableSize(1 << 12);
+		iterativeCounter.countSolutions();
+
+		Assertions.assertEquals(boardCounter.getSolutionsByStartingPoint(), iterativeCounter.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void transpositionTableDoesNotChangeCounts() {
+		final PuzzleSolver counter = new PuzzleSolver(5, SearchEngine.BITBOARD);
+		counter.countSolutions();
+		final PuzzleSolver memoisingCounter = new PuzzleSolver(5, SearchEngine.BITBOARD);
+		memoisingCounter.setTranspositionTableSize(1 << 12);
+		memoisingCounter.countSolutions();
+
+		Assertions.assertEquals(counter.getSolutionsByStartingPoint(), memoisingCounter.getSolutionsByStartingPoint());
+		Assertions.assertTrue(memoisingCounter.getTranspositionTableHitRate() > 0);
+	}
+
+	@Test
+	public void meetInTheMiddleEngineCountsSameSolutionsAsBoardEngine() {
+		final PuzzleSolver boardCounter = new PuzzleSolver(5, SearchEngine.BOARD);
+		boardCounter.countSolutions();
+		final PuzzleSolver meetInTheMiddleCounter = new PuzzleSolver(5, SearchEngine.MEET_IN_THE_MIDDLE);
+		meetInTheMiddleCounter.countSolutions();
+
+		Assertions.assertEquals(boardCounter.getSolutionsByStartingPoint(), meetInTheMiddleCounter.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void meetInTheMiddleEngineCountsSameSolutionsOnRectangularBoard() {
+		final PuzzleSolver bitboardCounter = new PuzzleSolver(5, 6, SearchEngine.BITBOARD);
+		bitboardCounter.countSolutions();
+		final PuzzleSolver meetInTheMiddleCounter = new PuzzleSolver(5, 6, SearchEngine.MEET_IN_THE_MIDDLE);
+		meetInTheMiddleCounter.countSolutions();
+
+		Assertions.assertEquals(bitboardCounter.getSolutionsByStartingPoint(), meetInTheMiddleCounter.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void firstSolutionsAreDistinctSolutionsOfBoard() {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+		final List<Solution> firstSolutions = new PuzzleSolver(5).findFirstSolutions(50);
+
+		Assertions.assertEquals(50, firstSolutions.size());
+		Assertions.assertEquals(50, new HashSet<>(firstSolutions).size());
+		Assertions.assertTrue(new HashSet<>(finder.getSolutions()).containsAll(firstSolutions));
+	}
+
+	@Test
+	public void findingMoreSolutionsThanBoardHasFindsAllSolutions() {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+		final List<Solution> firstSolutions = new PuzzleSolver(5).findFirstSolutions(20000);
+
+		Assertions.assertEquals(new HashSet<>(finder.getSolutions()), new HashSet<>(firstSolutions));
+		Assertions.assertEquals(finder.getSolutions().size(), firstSolutions.size());
+	}
+
+	@Test
+	public void firstSolutionsAreFoundWithPlatformThreads() {
+		final PuzzleSolver solver = new PuzzleSolver(10);
+		solver.setExecutionStrategy(ExecutionStrategy.PLATFORM_POOL);
+		solver.setParallelism(2);
+		final List<Solution> firstSolutions = solver.findFirstSolutions(10);
+
+		Assertions.assertEquals(10, firstSolutions.size());
+		Assertions.assertEquals(10, new HashSet<>(firstSolutions).size());
+	}
+
+	@Test
+	public void anySolutionIsFoundOnFullSizeBoard() {
+		final Solution solution = new PuzzleSolver(10).findAnySolution().orElseThrow();
+
+		final Board board = new Board(10);
+		Position position = solution.startPosition;
+		board.addNumber(position, 1);
+		for (Move move : solution.moves) {
+			position = position.applyMove(move);
+			Assertions.assertFalse(board.isPositionOutOfBounds(position));
+			Assertions.assertFalse(board.isPositionOccupied(position));
+			board.addNumber(position, 1);
+		}
+		Assertions.assertTrue(board.isFull());
+	}
+
+	@Test
+	public void splittingSearchIntoTasksFindsSameSolutionsInSameOrder() {
+		final PuzzleSolver unsplitSolver = new PuzzleSolver(5);
+		unsplitSolver.setSplitDepth(0);
+		unsplitSolver.findSolutions();
+		final PuzzleSolver splitSolver = new PuzzleSolver(5);
+		splitSolver.setSplitDepth(4);
+		splitSolver.findSolutions();
+
+		Assertions.assertEquals(unsplitSolver.getSolutions(), splitSolver.getSolutions());
+		Assertions.assertEquals(6, unsplitSolver.getTaskTimings().size());
+		Assertions.assertTrue(splitSolver.getTaskTimings().size() > 6);
+	}
+
+	@Test
+	public void everyExecutionStrategyFindsSameSolutionsInSameOrder(@TempDir Path tempDir) throws IOException {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+
+		for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+			if (!strategy.isSupported()) {
+				continue;
+			}
+			final PuzzleSolver solver = new PuzzleSolver(5);
+			solver.setExecutionStrategy(strategy);
+			solver.setSplitDepth(3);
+			solver.findSolutions();
+			Assertions.assertEquals(finder.getSolutions(), solver.getSolutions(), strategy.name());
+
+			final PuzzleSolver counter = new PuzzleSolver(5, SearchEngine.BITBOARD);
+			counter.setExecutionStrategy(strategy);
+			counter.setParallelism(2);
+			counter.countSolutions();
+			Assertions.assertEquals(finder.getSolutionsByStartingPoint(), counter.getSolutionsByStartingPoint(), strategy.name());
+
+			final Path solutionFile = tempDir.resolve(strategy + ".bin");
+			final PuzzleSolver writer = new PuzzleSolver(5);
+			writer.setExecutionStrategy(strategy);
+			writer.writeSolutions(solutionFile);
+			Assertions.assertEquals(new HashSet<>(finder.getSolutions()), new HashSet<>(SolutionReader.readAll(solutionFile)), strategy.name());
+		}
+	}
+
+	@Test
+	public void solutionsExpandedDuringSearchAreSameAsDeducedSolutions() {
+		for (int[] size : new int[][] { { 5, 5 }, { 4, 5 } }) {
+			final PuzzleSolver finder = new PuzzleSolver(size[0], size[1]);
+			finder.findSolutions();
+			final PuzzleSolver expander = new PuzzleSolver(size[0], size[1]);
+			expander.setExpandSolutions(true);
+			expander.setSplitDepth(3);
+			expander.findSolutions();
+
+			Assertions.assertEquals(finder.getSolutions(), expander.getSolutions());
+			Assertions.assertEquals(finder.getSolutionsByStartingPoint(), expander.getSolutionsByStartingPoint());
+		}
+	}
+
+	@Test
+	public void unsupportedExecutionStrategyIsRejected() {
+		final PuzzleSolver solver = new PuzzleSolver(5);
+		if (!ExecutionStrategy.VIRTUAL_THREADS.isSupported()) {
+			Assertions.assertThrows(UnsupportedOperationException.class, () -> solver.setExecutionStrategy(ExecutionStrategy.VIRTUAL_THREADS));
+		}
+		Assertions.assertThrows(IllegalArgumentException.class, () -> solver.setParallelism(0));
+	}
+
+	@Test
+	public void resumingCompletedCountFromCheckpointGivesSameCounts(@TempDir Path tempDir) {
+		final Path checkpointFile = tempDir.resolve("checkpoint.properties");
+		final PuzzleSolver counter = new PuzzleSolver(5);
+		counter.setCheckpointFile(checkpointFile, Duration.ofMinutes(1));
+		counter.countSolutions();
+
+		final PuzzleSolver resumed = new PuzzleSolver(5);
+		resumed.resumeCountSolutions(checkpointFile);
+
+		Assertions.assertEquals(counter.getSolutionsByStartingPoint(), resumed.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void resumingCheckpointOfOtherSearchIsRejected(@TempDir Path tempDir) {
+		final Path knightFile = tempDir.resolve("knight.properties");
+		new SearchCheckpoint(5, 5, 2, MoveRules.knight(), null).save(knightFile);
+		final Path constrainedFile = tempDir.resolve("constrained.properties");
+		final PuzzleConstraints constraints = PuzzleConstraints.endingIn(5, 5, new Position(0, 0));
+		new SearchCheckpoint(5, 5, 2, MoveRules.DEFAULT, constraints).save(constrainedFile);
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new PuzzleSolver(5).resumeCountSolutions(knightFile));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new PuzzleSolver(5).resumeCountSolutions(constrainedFile));
+		final PuzzleSolver knightSolver = new PuzzleSolver(5);
+		knightSolver.setMoveRules(MoveRules.knight());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> knightSolver.resumeCountSolutions(constrainedFile));
+		Assertions.assertTrue(SearchCheckpoint.load(constrainedFile).isFor(MoveRules.DEFAULT, constraints));
+	}
+
+	@Test
+	public void writtenSolutionsAreSameAsFoundSolutions(@TempDir Path tempDir) throws IOException {
+		final Path solutionFile = tempDir.resolve("solutions.bin");
+		final PuzzleSolver writer = new PuzzleSolver(5);
+		writer.writeSolutions(solutionFile);
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+
+		final List<Solution> writtenSolutions = SolutionReader.readAll(solutionFile);
+		Assertions.assertEquals(12400, writtenSolutions.size());
+		Assertions.assertEquals(new HashSet<>(finder.getSolutions()), new HashSet<>(writtenSolutions));
+		Assertions.assertEquals(finder.getSolutionsByStartingPoint(), writer.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void streamedSolutionsAreSameAsFoundSolutions() {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+
+		final PuzzleSolver streamer = new PuzzleSolver(5);
+		final List<Solution> streamed = new ArrayList<>();
+		final Set<Thread> sinkThreads = new HashSet<>();
+		final int[] completions = new int[1];
+		streamer.streamSolutions(new SolutionSink() {
+			@Override
+			public void accept(final List<Solution> solutions) {
+				Assertions.assertTrue(solutions.size() <= PuzzleSolver.DEFAULT_BATCH_SIZE);
+				sinkThreads.add(Thread.currentThread());
+				streamed.addAll(solutions);
+			}
+
+			@Override
+			public void complete() {
+				completions[0]++;
+			}
+		});
+
+		Assertions.assertEquals(new HashSet<>(finder.getSolutions()), new HashSet<>(streamed));
+		Assertions.assertEquals(finder.getSolutions().size(), streamed.size());
+		Assertions.assertEquals(finder.getSolutionsByStartingPoint(), streamer.getSolutionsByStartingPoint());
+		Assertions.assertEquals(1, sinkThreads.size());
+		Assertions.assertEquals(1, completions[0]);
+	}
+
+	@Test
+	public void failureOfSolutionSinkIsRethrown() {
+		final PuzzleSolver streamer = new PuzzleSolver(5);
+		final IllegalStateException failure = Assertions.assertThrows(IllegalStateException.class,
+				() -> streamer.streamSolutions(solutions -> {
+					throw new IllegalStateException("Sink failed");
+				}));
+		Assertions.assertEquals("Sink failed", failure.getMessage());
+	}
+
+	@Test
+	public void storedSolutionsAreSameAsFoundSolutions(@TempDir Path tempDir) throws IOException {
+		final Path storeFile = tempDir.resolve("solutions.store");
+		new PuzzleSolver(5).storeSolutions(storeFile);
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+
+		final Set<Solution> storedSolutions = new HashSet<>();
+		try (SolutionStore store = SolutionStore.open(storeFile)) {
+			for (Map.Entry<Position, Long> count : finder.getSolutionsByStartingPoint().entrySet()) {
+				Assertions.assertEquals(count.getValue(), store.count(count.getKey()));
+				store.solutionsFrom(count.getKey()).forEach(storedSolutions::add);
+			}
+		}
+		Assertions.assertEquals(new HashSet<>(finder.getSolutions()), storedSolutions);
+	}
+
 	@Test
 	public void solutionsAreSearchedFromOptimalStartingPointsOnly() {
 		final PuzzleSolver solver4x4 = new PuzzleSolver(4);
@@ -65,6 +371,258 @@ public class PuzzlerSolverTest {
 		Assertions.assertTrue(solutionStartingPoints10x10.contains(new Position(4,4)));
 	}
 
+	@Test
+	public void solutionsOnRectangularBoardAreSearchedFromFirstQuadrant() {
+		final List<Position> solutionStartingPoints6x8 = new PuzzleSolver(6, 8).getUniqueSolutionStartingPoints();
+		Assertions.assertEquals(12, solutionStartingPoints6x8.size());
+		Assertions.assertTrue(solutionStartingPoints6x8.contains(new Position(0,0)));
+		Assertions.assertTrue(solutionStartingPoints6x8.contains(new Position(2,3)));
+		Assertions.assertFalse(solutionStartingPoints6x8.contains(new Position(3,0)));
+		Assertions.assertFalse(solutionStartingPoints6x8.contains(new Position(0,4)));
+
+		final List<Position> solutionStartingPoints5x6 = new PuzzleSolver(5, 6).getUniqueSolutionStartingPoints();
+		Assertions.assertEquals(9, solutionStartingPoints5x6.size());
+		Assertions.assertTrue(solutionStartingPoints5x6.contains(new Position(2,2)));
+	}
+
+	@Test
+	public void solutionsOnRectangularBoardMatchSearchFromEveryCell() {
+		final PuzzleSolver finder = new PuzzleSolver(4, 5);
+		finder.findSolutions();
+		final List<Solution> foundSolutions = finder.getSolutions();
+		final Set<Solution> searchedSolutions = searchAllSolutions(4, 5);
+		Assertions.assertEquals(searchedSolutions.size(), foundSolutions.size());
+		Assertions.assertEquals(searchedSolutions, new HashSet<>(foundSolutions));
+
+		final PuzzleSolver oddWidthFinder = new PuzzleSolver(5, 6);
+		oddWidthFinder.findSolutions();
+		Assertions.assertEquals(oddWidthFinder.getSolutions().size(), new HashSet<>(oddWidthFinder.getSolutions()).size());
+		final PuzzleSolver counter = new PuzzleSolver(5, 6, SearchEngine.BITBOARD);
+		counter.countSolutions();
+		Assertions.assertEquals(oddWidthFinder.getSolutionsByStartingPoint(), counter.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void solutionsMatchSearchFromEveryCellWithoutSymmetries() {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+
+		Assertions.assertEquals(searchAllSolutions(5, 5), new HashSet<>(finder.getSolutions()));
+	}
+
+	/**
+	 * Searches all the solutions of a board from every cell with a plain
+	 * depth-first search, without any pruning or use of symmetries.
+	 */
+	private static Set<Solution> searchAllSolutions(final int boardWidth, final int boardHeight) {
+		return searchAllSolutions(MoveRules.DEFAULT, boardWidth, boardHeight);
+	}
+
+	private static Set<Solution> searchAllSolutions(final MoveRules rules, final int boardWidth, final int boardHeight) {
+		final Set<Solution> solutions = new HashSet<>();
+		for (int row = 0; row < boardHeight; row++) {
+			for (int col = 0; col < boardWidth; col++) {
+				final Board board = new Board(boardWidth, boardHeight);
+				final Position start = new Position(col, row);
+				board.addNumber(start, 1);
+				searchAllSolutions(rules, board, start, start, new ArrayList<>(), solutions);
+			}
+		}
+		return solutions;
+	}
+
+	private static void searchAllSolutions(final MoveRules rules, final Board board, final Position start, final Position current,
+										   final List<Move> moves, final Set<Solution> solutions) {
+		if (board.isFull()) {
+			solutions.add(new Solution(start, moves));
+			return;
+		}
+		for (Move move : rules.getMoves()) {
+			final Position next = rules.apply(current, move);
+			if (!board.isPositionOutOfBounds(next) && !board.isPositionOccupied(next)) {
+				board.addNumber(next, moves.size() + 2);
+				moves.add(move);
+				searchAllSolutions(rules, board, start, next, moves, solutions);
+				moves.remove(moves.size() - 1);
+				board.removeNumber(next);
+			}
+		}
+	}
+
+	@Test
+	public void solutionsWithOtherMoveRulesMatchSearchFromEveryCell() {
+		final List<MoveRules> rulesToTest = List.of(
+				MoveRules.knight(),
+				MoveRules.straightAndDiagonal(2, 1),
+				MoveRules.DEFAULT.without(Move.NW),
+				MoveRules.DEFAULT.with(Move.E, 1, 0));
+		for (MoveRules rules : rulesToTest) {
+			final Set<Solution> searchedSolutions = searchAllSolutions(rules, 4, 5);
+			final PuzzleSolver finder = new PuzzleSolver(4, 5);
+			finder.setMoveRules(rules);
+			finder.findSolutions();
+			Assertions.assertEquals(searchedSolutions.size(), finder.getSolutions().size(), rules.toString());
+			Assertions.assertEquals(searchedSolutions, new HashSet<>(finder.getSolutions()), rules.toString());
+
+			for (SearchEngine engine : SearchEngine.values()) {
+				final PuzzleSolver counter = new PuzzleSolver(4, 5, engine);
+				counter.setMoveRules(rules);
+				counter.countSolutions();
+				Assertions.assertEquals(finder.getSolutionsByStartingPoint(), counter.getSolutionsByStartingPoint(), rules + " " + engine);
+			}
+		}
+	}
+
+	@Test
+	public void knightMovesOnSquareBoardAreSearchedFromOneCellOfEachRotation() {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.setMoveRules(MoveRules.knight());
+		Assertions.assertEquals(7, finder.getUniqueSolutionStartingPoints().size());
+		finder.findSolutions();
+
+		Assertions.assertEquals(searchAllSolutions(MoveRules.knight(), 5, 5), new HashSet<>(finder.getSolutions()));
+	}
+
+	@Test
+	public void searchFindsOnlyOneOfEachSetOfSymmetricSolutions() {
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+		final List<Solution> uniqueSolutions = ((SymmetricSolutionList) finder.getSolutions()).getUniqueSolutions();
+
+		Assertions.assertEquals(12400 / 8, uniqueSolutions.size());
+		final Set<Solution> seen = new HashSet<>();
+		for (Solution unique : uniqueSolutions) {
+			for (Symmetry symmetry : Symmetry.of(5, 5)) {
+				Assertions.assertTrue(seen.add(symmetry.apply(unique, 5, 5)));
+			}
+		}
+	}
+
+	private static Board prefilledBoard(final int size, final Object... numbersAndPositions) {
+		final Board board = new Board(size);
+		for (int i = 0; i < numbersAndPositions.length; i += 2) {
+			board.addNumber((Position) numbersAndPositions[i + 1], (Integer) numbersAndPositions[i]);
+		}
+		return board;
+	}
+
+	private static boolean hasNumbersOf(final Solution solution, final Board prefilled) {
+		Position current = solution.startPosition;
+		for (int number = 1; number <= solution.moves.size() + 1; number++) {
+			if (prefilled.isPositionOccupied(current) && prefilled.getNumber(current) != number) {
+				return false;
+			}
+			if (number <= solution.moves.size()) {
+				current = current.applyMove(solution.moves.get(number - 1));
+			}
+		}
+		return true;
+	}
+
+	@Test
+	public void constrainedSearchFindsSolutionsWithFixedNumbers() {
+		final PuzzleSolver unconstrained = new PuzzleSolver(5);
+		unconstrained.findSolutions();
+
+		final List<Board> prefilledBoards = List.of(
+				prefilledBoard(5, 1, new Position(0, 0), 25, new Position(2, 2)),
+				prefilledBoard(5, 25, new Position(2, 2)),
+				prefilledBoard(5, 13, new Position(2, 2)),
+				prefilledBoard(5, 2, new Position(1, 0), 24, new Position(3, 4)),
+				prefilledBoard(5, 7, new Position(0, 2), 7 + 12, new Position(4, 2)));
+		for (Board prefilled : prefilledBoards) {
+			final PuzzleSolver solver = new PuzzleSolver(5);
+			solver.setConstraints(new PuzzleConstraints(prefilled));
+			solver.findSolutions();
+
+			final Set<Solution> expected = new HashSet<>();
+			for (Solution solution : unconstrained.getSolutions()) {
+				if (hasNumbersOf(solution, prefilled)) {
+					expected.add(solution);
+				}
+			}
+			Assertions.assertFalse(expected.isEmpty());
+			Assertions.assertEquals(expected.size(), solver.getSolutions().size());
+			Assertions.assertEquals(expected, new HashSet<>(solver.getSolutions()));
+		}
+	}
+
+	@Test
+	public void countingConstrainedSolutionsGivesSameCountsAsFindingThem() {
+		final PuzzleConstraints constraints = PuzzleConstraints.endingIn(5, 5, new Position(2, 2));
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.setConstraints(constraints);
+		finder.findSolutions();
+		final PuzzleSolver counter = new PuzzleSolver(5);
+		counter.setConstraints(constraints);
+		counter.countSolutions();
+
+		Assertions.assertEquals(finder.getSolutions().size(), counter.getSolutionCount());
+		Assertions.assertEquals(finder.getSolutionsByStartingPoint(), counter.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void firstConstrainedSolutionsAreConstrainedSolutions() {
+		final PuzzleConstraints constraints = new PuzzleConstraints(prefilledBoard(5, 13, new Position(2, 2)));
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.setConstraints(constraints);
+		finder.findSolutions();
+		final Set<Solution> expected = new HashSet<>(finder.getSolutions());
+
+		final PuzzleSolver firstFinder = new PuzzleSolver(5);
+		firstFinder.setConstraints(constraints);
+		final List<Solution> firstSolutions = firstFinder.findFirstSolutions(20);
+		Assertions.assertEquals(20, new HashSet<>(firstSolutions).size());
+		Assertions.assertTrue(expected.containsAll(firstSolutions));
+
+		final List<Solution> allSolutions = firstFinder.findFirstSolutions(expected.size() + 1);
+		Assertions.assertEquals(expected.size(), allSolutions.size());
+		Assertions.assertEquals(expected, new HashSet<>(allSolutions));
+	}
+
+	@Test
+	public void constrainedSolutionIsFoundOnFullSizeBoard() {
+		final Board prefilled = prefilledBoard(10, 1, new Position(0, 0), 100, new Position(5, 5));
+		final PuzzleSolver solver = new PuzzleSolver(10);
+		solver.setConstraints(new PuzzleConstraints(prefilled));
+		final Solution solution = solver.findAnySolution().orElseThrow();
+
+		Assertions.assertEquals(new Position(0, 0), solution.startPosition);
+		Assertions.assertEquals(99, solution.moves.size());
+		Assertions.assertTrue(hasNumbersOf(solution, prefilled));
+	}
+
+	@Test
+	public void constraintsKeepOnlySymmetriesMappingFixedNumbersToThemselves() {
+		Assertions.assertEquals(Symmetry.of(5, 5),
+				new PuzzleConstraints(prefilledBoard(5, 13, new Position(2, 2))).getPreservedSymmetries());
+		Assertions.assertEquals(List.of(Symmetry.IDENTITY, Symmetry.MIRROR_DIAGONALLY),
+				new PuzzleConstraints(prefilledBoard(5, 1, new Position(0, 0)), new Position(2, 2)).getPreservedSymmetries());
+		Assertions.assertEquals(List.of(Symmetry.IDENTITY, Symmetry.MIRROR_VERTICALLY),
+				new PuzzleConstraints(prefilledBoard(5, 7, new Position(0, 2), 19, new Position(4, 2))).getPreservedSymmetries());
+		Assertions.assertEquals(List.of(Symmetry.IDENTITY),
+				new PuzzleConstraints(prefilledBoard(5, 7, new Position(0, 2), 19, new Position(4, 1))).getPreservedSymmetries());
+	}
+
+	@Test
+	public void constrainedSearchStartsFromFixedFirstNumber() {
+		final PuzzleConstraints constraints = new PuzzleConstraints(prefilledBoard(5, 1, new Position(4, 1)));
+		Assertions.assertEquals(List.of(new Position(4, 1)),
+				constraints.getUniqueStartingPoints(new BoardSymmetry(5, 5, constraints.getPreservedSymmetries())));
+	}
+
+	@Test
+	public void conflictingConstraintsAreRejected() {
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new PuzzleConstraints(prefilledBoard(5, 13, new Position(2, 2)), new Position(2, 2)));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new PuzzleConstraints(prefilledBoard(5, 26, new Position(2, 2))));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new PuzzleConstraints(prefilledBoard(5, 25, new Position(0, 0)), new Position(2, 2)));
+		Assertions.assertThrows(UnsupportedOperationException.class,
+				() -> new PuzzleSolver(5, SearchEngine.BITBOARD).setConstraints(PuzzleConstraints.endingIn(5, 5, new Position(2, 2))));
+	}
+
 	@Test
 	public void allSolutionsToPuzzleAreUnique() {
 		PuzzleSolver solver = new PuzzleSolver(5);
@@ -0,0 +1,76 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SearchCheckpointTest {
+	private static final int BOARD_SIZE = 5;
+	private static final Position START_POSITION = new Position(1, 0);
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void countInProgressIsStoredWithPathReached() {
+		final SuccessorTable successors = SuccessorTable.compile(BOARD_SIZE);
+		final SearchCheckpoint checkpoint = new SearchCheckpoint(BOARD_SIZE, BOARD_SIZE, 0, 1000);
+		final SearchCheckpoint.Entry entry = checkpoint.entryFor(START_POSITION, ImmutableList.of());
+
+		new SolverForStartingPoint(START_POSITION, successors).countSolutions(entry, 1000);
+
+		Assertions.assertFalse(entry.isComplete());
+		Assertions.assertFalse(entry.getPath().isEmpty());
+	}
+
+	@Test
+	public void resumedCountEqualsUninterruptedCount() {
+		final SuccessorTable successors = SuccessorTable.compile(BOARD_SIZE);
+		final long uninterruptedCount = new SolverForStartingPoint(START_POSITION, successors).countSolutions().total();
+
+		// the entry is left with the last progress update as if the search had been stopped
+		final SearchCheckpoint checkpoint = new SearchCheckpoint(BOARD_SIZE, BOARD_SIZE, 0, 1000);
+		new SolverForStartingPoint(START_POSITION, successors)
+				.countSolutions(checkpoint.entryFor(START_POSITION, ImmutableList.of()), 1000);
+		final Path file = tempDir.resolve("checkpoint.properties");
+		checkpoint.save(file);
+
+		final SearchCheckpoint.Entry loadedEntry = SearchCheckpoint.load(file).entryFor(START_POSITION, ImmutableList.of());
+		Assertions.assertTrue(loadedEntry.getCount().total() > 0);
+		for (SearchEngine engine : SearchEngine.values()) {
+			final StartingPointSolver solver = engine.createSolver(START_POSITION, successors);
+			Assertions.assertEquals(uninterruptedCount, solver.countSolutions(loadedEntry, 1000).total());
+		}
+	}
+
+	@Test
+	public void completedTaskIsStoredAsComplete() {
+		final SearchCheckpoint checkpoint = new SearchCheckpoint(BOARD_SIZE, BOARD_SIZE, 1);
+		final SolutionCount count = new SolutionCount(START_POSITION);
+		count.increment(Move.E);
+		checkpoint.entryFor(START_POSITION, ImmutableList.of(Move.E)).complete(count);
+		final Path file = tempDir.resolve("checkpoint.properties");
+		checkpoint.save(file);
+
+		final SearchCheckpoint loaded = SearchCheckpoint.load(file);
+		final SearchCheckpoint.Entry entry = loaded.entryFor(START_POSITION, ImmutableList.of(Move.E));
+		Assertions.assertEquals(BOARD_SIZE, loaded.boardWidth);
+		Assertions.assertEquals(BOARD_SIZE, loaded.boardHeight);
+		Assertions.assertEquals(1, loaded.splitDepth);
+		Assertions.assertTrue(entry.isComplete());
+		Assertions.assertEquals(1, entry.getCount().get(Move.E));
+	}
+
+	@Test
+	public void checkpointWithoutFormatVersionIsRejected() throws IOException {
+		final Path file = tempDir.resolve("checkpoint.properties");
+		Files.writeString(file, "boardSize=5\nsplitDepth=0\ntask.1,0/=complete;1,0,0,0,0,0,0,0;\n");
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> SearchCheckpoint.load(file));
+	}
+}
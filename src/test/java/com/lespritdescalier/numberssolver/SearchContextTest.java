@@ -0,0 +1,32 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class SearchContextTest {
+	@Test
+	public void transpositionTablesAreLimitedToParallelism() {
+		final SearchContext context = new SearchContext(SearchEngine.BITBOARD, SuccessorTable.compile(5), 2,
+				new ConcurrentLinkedQueue<>(), null, 16, 2, null);
+
+		final TranspositionTable first = context.borrowTranspositionTable();
+		final TranspositionTable second = context.borrowTranspositionTable();
+		Assertions.assertNotNull(first);
+		Assertions.assertNotNull(second);
+		Assertions.assertNotSame(first, second);
+		Assertions.assertNull(context.borrowTranspositionTable());
+
+		context.returnTranspositionTable(first);
+		Assertions.assertSame(first, context.borrowTranspositionTable());
+	}
+
+	@Test
+	public void noTranspositionTableIsLentWithoutSize() {
+		final SearchContext context = new SearchContext(SearchEngine.BITBOARD, SuccessorTable.compile(5), 2,
+				new ConcurrentLinkedQueue<>(), null, 0, 2, null);
+
+		Assertions.assertNull(context.borrowTranspositionTable());
+	}
+}
@@ -0,0 +1,53 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+
+public class SearchMetricsTest {
+
+	@Test
+	public void progressCountsSolutionsFromEachStartingPoint() {
+		final SuccessorTable successors = SuccessorTable.compile(5);
+		final List<Position> startingPoints = new PuzzleSolver(5).getUniqueSolutionStartingPoints();
+		final SearchMetrics metrics = new SearchMetrics(startingPoints, Duration.ofMinutes(1));
+
+		long solutionCount = 0;
+		for (Position start : startingPoints) {
+			for (SearchEngine engine : SearchEngine.values()) {
+				final StartingPointSolver solver = engine.createSolver(start, successors);
+				solver.setProgress(metrics.progressFor(start));
+				solutionCount += solver.countSolutions().total();
+			}
+
+			final SearchProgress progress = metrics.progressFor(start);
+			Assertions.assertTrue(progress.isFinished());
+			Assertions.assertEquals(0, progress.getRunningTasks());
+			Assertions.assertTrue(progress.getNodesVisited() > 0);
+			if (progress.getSolutionsFound() > 0) {
+				Assertions.assertEquals(23, progress.getMaxDepth());
+			}
+		}
+
+		Assertions.assertEquals(solutionCount, metrics.totalSolutionsFound());
+	}
+
+	@Test
+	public void progressIsRegisteredAsMBeanWhileSearching() throws Exception {
+		final Position start = new Position(0, 0);
+		final SearchMetrics metrics = new SearchMetrics(List.of(start), Duration.ofMinutes(1));
+
+		metrics.start();
+		try {
+			Assertions.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(SearchMetrics.objectName(start)));
+			Assertions.assertEquals(start.toString(),
+					ManagementFactory.getPlatformMBeanServer().getAttribute(SearchMetrics.objectName(start), "StartPosition"));
+		} finally {
+			metrics.stop();
+		}
+		Assertions.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(SearchMetrics.objectName(start)));
+	}
+}
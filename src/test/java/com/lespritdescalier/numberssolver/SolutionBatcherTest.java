@@ -0,0 +1,39 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SolutionBatcherTest {
+	private static final Solution SOLUTION = new Solution(new Position(0, 0), ImmutableList.of(Move.E));
+
+	@Test
+	public void batchesAreDeliveredInBatchesOfGivenSize() {
+		final List<List<Solution>> delivered = new ArrayList<>();
+		try (SolutionBatcher batcher = new SolutionBatcher(delivered::add, 2, 1)) {
+			final SolutionBatcher.Batch batch = batcher.newBatch();
+			for (int i = 0; i < 5; i++) {
+				batch.accept(SOLUTION);
+			}
+			batch.flush();
+		}
+
+		Assertions.assertEquals(List.of(2, 2, 1), delivered.stream().map(List::size).toList());
+	}
+
+	@Test
+	public void batchHandedOverAfterCloseFailsInsteadOfWaiting() {
+		final SolutionBatcher batcher = new SolutionBatcher(solutions -> {
+		}, 1, 1);
+		final SolutionBatcher.Batch batch = batcher.newBatch();
+		batcher.close();
+
+		// The delivery has stopped, so the batch would otherwise never be taken
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5),
+				() -> Assertions.assertThrows(IllegalStateException.class, () -> batch.accept(SOLUTION)));
+	}
+}
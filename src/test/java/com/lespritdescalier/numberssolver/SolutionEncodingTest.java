@@ -0,0 +1,33 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SolutionEncodingTest {
+
+	@Test
+	public void recordHasStartingCellByteAndThreeBitsPerMove() {
+		Assertions.assertEquals(1 + 9, new SolutionEncoding(5, 5).recordLength);
+		Assertions.assertEquals(1 + 38, new SolutionEncoding(10, 10).recordLength);
+	}
+
+	@Test
+	public void decodingEncodedSolutionReturnsOriginalSolution() {
+		final Solution original = new Solution(new Position(1, 1), ImmutableList.of(
+				Move.E, Move.SW, Move.NW, Move.S, Move.E, Move.N, Move.SW, Move.E, Move.N, Move.W,
+				Move.SE, Move.SW, Move.E, Move.NW, Move.NW, Move.S, Move.E, Move.N, Move.SW, Move.E,
+				Move.NW, Move.SW, Move.SE, Move.N));
+		final SolutionEncoding encoding = new SolutionEncoding(5, 5);
+		final byte[] records = new byte[encoding.recordLength * 2];
+
+		encoding.encode(original, records, encoding.recordLength);
+		Assertions.assertEquals(6, records[encoding.recordLength]);
+		Assertions.assertEquals(original, encoding.decode(records, encoding.recordLength));
+	}
+
+	@Test
+	public void boardsWithMoreCellsThanFitInByteAreNotSupported() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new SolutionEncoding(17, 16));
+	}
+}
@@ -0,0 +1,56 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SolutionStatisticsTest {
+
+	@Test
+	public void addingSolutionCountsItsCellsAndFirstMove() {
+		// (0,0) -> (3,0) -> (3,3) -> (0,3) on a 4x4 board
+		final Solution solution = new Solution(new Position(0, 0), ImmutableList.of(Move.E, Move.S, Move.W));
+		final SolutionStatistics statistics = new SolutionStatistics(4, 4);
+		statistics.add(solution);
+
+		Assertions.assertEquals(1, statistics.total());
+		Assertions.assertEquals(1, statistics.getSolutionsStartingFrom(new Position(0, 0)));
+		Assertions.assertEquals(1, statistics.getSolutions(new Position(0, 0), new Position(0, 3)));
+		Assertions.assertEquals(1, statistics.getSolutionsWithFirstMove(Move.E));
+		Assertions.assertEquals(1, statistics.getSolutionsVisiting(new Position(3, 0), 1));
+		Assertions.assertEquals(1, statistics.getSolutionsVisiting(new Position(3, 3), 2));
+		Assertions.assertEquals(0, statistics.getSolutionsVisiting(new Position(3, 3), 1));
+	}
+
+	@Test
+	public void statisticsOfUniqueSolutionsAreExpandedToAllSolutions() {
+		assertStatisticsMatchAllSolutions(5, 5);
+		assertStatisticsMatchAllSolutions(4, 5);
+	}
+
+	private static void assertStatisticsMatchAllSolutions(final int width, final int height) {
+		final PuzzleSolver finder = new PuzzleSolver(width, height);
+		finder.findSolutions();
+		final SolutionStatistics expected = new SolutionStatistics(width, height);
+		finder.getSolutions().forEach(expected::add);
+
+		final PuzzleSolver collector = new PuzzleSolver(width, height);
+		collector.collectStatistics();
+		final SolutionStatistics statistics = collector.getStatistics();
+
+		Assertions.assertEquals(finder.getSolutions().size(), statistics.total());
+		Assertions.assertEquals(finder.getSolutionsByStartingPoint(), collector.getSolutionsByStartingPoint());
+		for (Move move : Move.values()) {
+			Assertions.assertEquals(expected.getSolutionsWithFirstMove(move), statistics.getSolutionsWithFirstMove(move));
+		}
+		for (int cell = 0; cell < width * height; cell++) {
+			final Position position = new Position(cell % width, cell / width);
+			Assertions.assertEquals(expected.getSolutionsEndingIn(position), statistics.getSolutionsEndingIn(position));
+			for (int other = 0; other < width * height; other++) {
+				final Position otherPosition = new Position(other % width, other / width);
+				Assertions.assertEquals(expected.getSolutions(position, otherPosition), statistics.getSolutions(position, otherPosition));
+				Assertions.assertEquals(expected.getSolutionsVisiting(position, other), statistics.getSolutionsVisiting(position, other));
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SolutionStoreTest {
+	// Not real solutions, just paths of the right length for a 2x2 board
+	private static final Solution FIRST_FROM_ORIGIN = new Solution(new Position(0, 0), ImmutableList.of(Move.E, Move.S, Move.W));
+	private static final Solution SECOND_FROM_ORIGIN = new Solution(new Position(0, 0), ImmutableList.of(Move.S, Move.E, Move.N));
+	private static final Solution FROM_CORNER = new Solution(new Position(1, 1), ImmutableList.of(Move.N, Move.W, Move.S));
+
+	@TempDir
+	Path tempDir;
+
+	private Path createStore() throws IOException {
+		final Path file = tempDir.resolve("solutions.store");
+		try (SolutionStore store = SolutionStore.create(file, 2, 2, ImmutableMap.of(new Position(0, 0), 2L, new Position(1, 1), 1L))) {
+			store.add(FROM_CORNER);
+			store.add(FIRST_FROM_ORIGIN);
+			store.add(SECOND_FROM_ORIGIN);
+		}
+		return file;
+	}
+
+	@Test
+	public void solutionsCanBeReadByStartingCellAndIndex() throws IOException {
+		try (SolutionStore store = SolutionStore.open(createStore())) {
+			Assertions.assertEquals(2, store.count(new Position(0, 0)));
+			Assertions.assertEquals(0, store.count(new Position(1, 0)));
+			Assertions.assertEquals(SECOND_FROM_ORIGIN, store.get(new Position(0, 0), 1));
+			Assertions.assertEquals(FROM_CORNER, store.get(new Position(1, 1), 0));
+		}
+	}
+
+	@Test
+	public void rangeIteratesSolutionsFromStartingCellInOrder() throws IOException {
+		try (SolutionStore store = SolutionStore.open(createStore())) {
+			final List<Solution> solutions = new ArrayList<>();
+			store.solutionsFrom(new Position(0, 0)).forEach(solutions::add);
+			Assertions.assertEquals(ImmutableList.of(FIRST_FROM_ORIGIN, SECOND_FROM_ORIGIN), solutions);
+		}
+	}
+
+	@Test
+	public void readingPastSolutionsOfStartingCellFails() throws IOException {
+		try (SolutionStore store = SolutionStore.open(createStore())) {
+			Assertions.assertThrows(IndexOutOfBoundsException.class, () -> store.get(new Position(1, 1), 1));
+		}
+	}
+
+	@Test
+	public void addingMoreSolutionsThanReservedFails() throws IOException {
+		final Path file = tempDir.resolve("full.store");
+		try (SolutionStore store = SolutionStore.create(file, 2, 2, ImmutableMap.of(new Position(1, 1), 1L))) {
+			store.add(FROM_CORNER);
+			Assertions.assertThrows(IllegalStateException.class, () -> store.add(FROM_CORNER));
+		}
+	}
+}
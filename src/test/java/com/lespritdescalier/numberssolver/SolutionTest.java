@@ -40,4 +40,20 @@ public class SolutionTest {
 		Assertions.assertEquals(startPos, mirroredSolution.startPosition);
 		Assertions.assertEquals(ImmutableList.of(Move.S, Move.SE, Move.E, Move.NE, Move.N, Move.NW, Move.W, Move.SW), mirroredSolution.moves);
 	}
+
+	@Test
+	public void solutionFromPackedMovesEqualsSolutionFromList() {
+		final Position startPos = new Position(1, 2);
+		final List<Move> moves = ImmutableList.of(Move.E, Move.SE, Move.N, Move.NW);
+		final byte[] moveStack = {(byte) Move.E.ordinal(), (byte) Move.SE.ordinal(), (byte) Move.N.ordinal(),
+				(byte) Move.NW.ordinal(), (byte) Move.W.ordinal()};
+
+		final Solution packed = Solution.fromPackedMoves(startPos, moveStack, 4);
+		moveStack[0] = (byte) Move.S.ordinal();
+
+		Assertions.assertEquals(moves, packed.moves);
+		Assertions.assertEquals(new Solution(startPos, moves), packed);
+		Assertions.assertEquals(new Solution(startPos, moves).hashCode(), packed.hashCode());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> packed.moves.set(0, Move.S));
+	}
 }
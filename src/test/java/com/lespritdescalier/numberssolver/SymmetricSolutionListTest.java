@@ -0,0 +1,63 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SymmetricSolutionListTest {
+
+	@Test
+	public void lazyListHasSameSolutionsInSameOrderAsEagerExpansion() {
+		final List<Solution> uniqueSolutions = findUniqueSolutions(5);
+		final List<Solution> expected = expandEagerly(uniqueSolutions, 5);
+
+		final SymmetricSolutionList lazyList = new SymmetricSolutionList(5, uniqueSolutions);
+		Assertions.assertEquals(expected.size(), lazyList.size());
+		Assertions.assertEquals(expected, lazyList);
+	}
+
+	@Test
+	public void expandedPartitionsHaveSameSolutionsInSameOrderAsLazyList() {
+		final List<Solution> uniqueSolutions = findUniqueSolutions(5);
+		final BoardSymmetry boardSymmetry = new BoardSymmetry(5, 5);
+		final int half = uniqueSolutions.size() / 2;
+		final List<Solution[]> partitions = List.of(
+				SymmetricSolutionList.expand(boardSymmetry, List.of()),
+				SymmetricSolutionList.expand(boardSymmetry, uniqueSolutions.subList(0, half)),
+				SymmetricSolutionList.expand(boardSymmetry, List.of()),
+				SymmetricSolutionList.expand(boardSymmetry, uniqueSolutions.subList(half, uniqueSolutions.size())));
+
+		final SymmetricSolutionList expandedList = new SymmetricSolutionList(boardSymmetry, uniqueSolutions, partitions);
+		Assertions.assertEquals(new SymmetricSolutionList(5, uniqueSolutions), expandedList);
+	}
+
+	@Test
+	public void accessingIndexOutsideListFails() {
+		final SymmetricSolutionList lazyList = new SymmetricSolutionList(5, findUniqueSolutions(5));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> lazyList.get(lazyList.size()));
+	}
+
+	private static List<Solution> findUniqueSolutions(final int boardSize) {
+		final SuccessorTable successors = SuccessorTable.compile(boardSize);
+		final List<Solution> uniqueSolutions = new ArrayList<>();
+		for (Position start : new PuzzleSolver(boardSize).getUniqueSolutionStartingPoints()) {
+			uniqueSolutions.addAll(new SolverForStartingPoint(start, successors).searchSolutions());
+		}
+		return uniqueSolutions;
+	}
+
+	/**
+	 * Applies each symmetry of the board to all the solutions at once.
+	 */
+	private static List<Solution> expandEagerly(final List<Solution> uniqueSolutions, final int boardSize) {
+		final List<Solution> solutions = new ArrayList<>();
+		for (Symmetry symmetry : Symmetry.of(boardSize, boardSize)) {
+			for (Solution unique : uniqueSolutions) {
+				solutions.add(symmetry.apply(unique, boardSize, boardSize));
+			}
+		}
+		return solutions;
+	}
+}
@@ -0,0 +1,35 @@
+package com.lespritdescalier.numberssolver;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SymmetryBreakerTest {
+
+	@Test
+	public void onlyCellsOnSymmetryAxesHaveStabilizer() {
+		Assertions.assertEquals(0, SymmetryBreaker.stabilizer(new Position(1, 0), 5, 5));
+		Assertions.assertEquals(1, Integer.bitCount(SymmetryBreaker.stabilizer(new Position(1, 1), 5, 5)));
+		Assertions.assertEquals(1, Integer.bitCount(SymmetryBreaker.stabilizer(new Position(2, 0), 5, 5)));
+		Assertions.assertEquals(7, Integer.bitCount(SymmetryBreaker.stabilizer(new Position(2, 2), 5, 5)));
+		Assertions.assertEquals(3, Integer.bitCount(SymmetryBreaker.stabilizer(new Position(2, 3), 5, 7)));
+	}
+
+	@Test
+	public void firstMovesFromDiagonalAxisAreLimitedToOneSideOfAxis() {
+		final int stabilizer = SymmetryBreaker.stabilizer(new Position(1, 1), 6, 6);
+		for (Move move : Move.values()) {
+			final boolean expected = move != Move.S && move != Move.SW && move != Move.W;
+			Assertions.assertEquals(expected, SymmetryBreaker.isCanonical(stabilizer, move), move.name());
+		}
+	}
+
+	@Test
+	public void moveAlongAxisKeepsSymmetryTracked() {
+		final int stabilizer = SymmetryBreaker.stabilizer(new Position(1, 1), 6, 6);
+		Assertions.assertEquals(stabilizer, SymmetryBreaker.fixingSymmetriesAfter(stabilizer, ImmutableList.of(Move.SE)));
+		Assertions.assertEquals(0, SymmetryBreaker.fixingSymmetriesAfter(stabilizer, ImmutableList.of(Move.SE, Move.E, Move.S)));
+		Assertions.assertEquals(SymmetryBreaker.NOT_CANONICAL,
+				SymmetryBreaker.fixingSymmetriesAfter(stabilizer, ImmutableList.of(Move.SE, Move.S)));
+	}
+}
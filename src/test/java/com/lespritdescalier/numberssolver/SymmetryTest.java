@@ -0,0 +1,48 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SymmetryTest {
+
+	@Test
+	public void squareBoardHasEightSymmetries() {
+		Assertions.assertEquals(8, Symmetry.of(5, 5).size());
+		Assertions.assertEquals(Symmetry.IDENTITY, Symmetry.of(5, 5).get(0));
+	}
+
+	@Test
+	public void rectangularBoardHasFourSymmetries() {
+		Assertions.assertEquals(4, Symmetry.of(6, 8).size());
+		Assertions.assertFalse(Symmetry.of(6, 8).contains(Symmetry.ROTATE_90));
+		Assertions.assertFalse(Symmetry.of(6, 8).contains(Symmetry.MIRROR_DIAGONALLY));
+	}
+
+	@Test
+	public void symmetriesMovingCellsTheSameWayAreIncludedOnlyOnce() {
+		Assertions.assertEquals(2, Symmetry.of(7, 1).size());
+		Assertions.assertEquals(1, Symmetry.of(1, 1).size());
+	}
+
+	@Test
+	public void transformedMoveLeadsToTransformedPosition() {
+		final int width = 6;
+		final int height = 8;
+		for (Symmetry symmetry : Symmetry.of(width, height)) {
+			for (Move move : Move.values()) {
+				final Position from = new Position(2, 3);
+				final Position to = from.applyMove(move);
+				Assertions.assertEquals(symmetry.apply(to, width, height),
+						symmetry.apply(from, width, height).applyMove(symmetry.apply(move)), symmetry + " " + move);
+			}
+		}
+		for (Symmetry symmetry : Symmetry.of(width, width)) {
+			for (Move move : Move.values()) {
+				final Position from = new Position(1, 2);
+				final Position to = from.applyMove(move);
+				Assertions.assertEquals(symmetry.apply(to, width, width),
+						symmetry.apply(from, width, width).applyMove(symmetry.apply(move)), symmetry + " " + move);
+			}
+		}
+	}
+}
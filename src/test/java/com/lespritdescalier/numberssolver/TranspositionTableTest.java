@@ -0,0 +1,36 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+
+	@Test
+	public void storedCountIsFound() {
+		final TranspositionTable table = new TranspositionTable(16);
+		table.put(0b1011L, 1L, 3, 10, 42);
+
+		Assertions.assertEquals(42, table.get(0b1011L, 1L, 3));
+		Assertions.assertEquals(TranspositionTable.NOT_FOUND, table.get(0b1011L, 1L, 1));
+		Assertions.assertEquals(TranspositionTable.NOT_FOUND, table.get(0b1011L, 0L, 3));
+		Assertions.assertEquals(3, table.getLookups());
+		Assertions.assertEquals(1, table.getHits());
+	}
+
+	@Test
+	public void stateWithMostCellsLeftIsKept() {
+		// A table of a single bucket, so all the states compete for the same entries
+		final TranspositionTable table = new TranspositionTable(2);
+		table.put(0b1L, 0, 0, 20, 1);
+		table.put(0b11L, 0, 1, 10, 2);
+		table.put(0b111L, 0, 2, 5, 3);
+
+		Assertions.assertEquals(1, table.get(0b1L, 0, 0));
+		Assertions.assertEquals(TranspositionTable.NOT_FOUND, table.get(0b11L, 0, 1));
+		Assertions.assertEquals(3, table.get(0b111L, 0, 2));
+
+		table.put(0b1111L, 0, 3, 30, 4);
+		Assertions.assertEquals(4, table.get(0b1111L, 0, 3));
+		Assertions.assertEquals(TranspositionTable.NOT_FOUND, table.get(0b1L, 0, 0));
+	}
+}
@@ -0,0 +1,164 @@
+package com.lespritdescalier.numberssolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class WorkQueueTest {
+	@Test
+	public void countWithWorkerProcessesMatchesLocalCount(@TempDir Path tempDir) throws Exception {
+		final Path queueDirectory = tempDir.resolve("queue");
+		final List<Process> workers = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			workers.add(new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+					"-cp", System.getProperty("java.class.path"), SearchWorker.class.getName(), queueDirectory.toString(), "1")
+					.inheritIO()
+					.start());
+		}
+
+		try {
+			final PuzzleSolver coordinator = new PuzzleSolver(5, SearchEngine.BITBOARD);
+			coordinator.countSolutionsDistributed(queueDirectory);
+			final PuzzleSolver counter = new PuzzleSolver(5);
+			counter.countSolutions();
+
+			Assertions.assertEquals(counter.getSolutionsByStartingPoint(), coordinator.getSolutionsByStartingPoint());
+			for (Process worker : workers) {
+				Assertions.assertTrue(worker.waitFor(30, TimeUnit.SECONDS));
+				Assertions.assertEquals(0, worker.exitValue());
+			}
+		} finally {
+			workers.forEach(Process::destroyForcibly);
+		}
+	}
+
+	@Test
+	public void distributedSolutionsAreSameAsFoundSolutions(@TempDir Path tempDir) throws IOException, InterruptedException {
+		final Path queueDirectory = tempDir.resolve("queue");
+		final Thread worker = new Thread(new SearchWorker(queueDirectory, 2));
+		worker.start();
+
+		final PuzzleSolver coordinator = new PuzzleSolver(5);
+		coordinator.setSplitDepth(3);
+		final Path file = tempDir.resolve("solutions.bin");
+		coordinator.writeSolutionsDistributed(queueDirectory, file);
+		worker.join();
+		final PuzzleSolver finder = new PuzzleSolver(5);
+		finder.findSolutions();
+
+		final List<Solution> written = SolutionReader.readAll(file);
+		Assertions.assertEquals(finder.getSolutions().size(), written.size());
+		Assertions.assertEquals(new HashSet<>(finder.getSolutions()), new HashSet<>(written));
+		Assertions.assertEquals(finder.getSolutionsByStartingPoint(), coordinator.getSolutionsByStartingPoint());
+	}
+
+	@Test
+	public void unitOfLostWorkerIsDispatchedAgain(@TempDir Path tempDir) throws InterruptedException {
+		final SuccessorTable successors = SuccessorTable.compile(5);
+		final List<WorkUnit> units = WorkUnit.split(List.of(new Position(0, 0)), successors, 1);
+		final WorkQueue queue = WorkQueue.create(tempDir, 5, 5, SearchEngine.BOARD, WorkQueue.Mode.COUNT,
+				Duration.ofMillis(100), units);
+
+		final WorkUnit lost = queue.claim().orElseThrow();
+		final WorkUnit renewed = queue.claim().orElseThrow();
+		Assertions.assertTrue(queue.claim().isEmpty());
+		Thread.sleep(150);
+		queue.renew(renewed);
+		Assertions.assertEquals(1, queue.requeueExpired());
+
+		final WorkUnit redispatched = queue.claim().orElseThrow();
+		Assertions.assertEquals(lost.id, redispatched.id);
+		Assertions.assertEquals(lost.movePrefix, redispatched.movePrefix);
+
+		// The lost worker finishing late doesn't change the results
+		final SolutionCount count = SearchEngine.BOARD.createSolver(lost.startPosition, successors, lost.movePrefix).countSolutions();
+		queue.complete(redispatched, count, null);
+		queue.complete(lost, count, null);
+		queue.complete(renewed, new SolutionCount(renewed.startPosition), null);
+		Assertions.assertEquals(units.size(), queue.completedCount());
+		Assertions.assertEquals(count.total(), queue.getCounts().stream().mapToLong(SolutionCount::total).sum());
+	}
+
+	@Test
+	public void failedUnitIsNotDispatchedAgain(@TempDir Path tempDir) throws InterruptedException {
+		final SuccessorTable successors = SuccessorTable.compile(5);
+		final List<WorkUnit> units = WorkUnit.split(List.of(new Position(0, 0)), successors, 1);
+		final WorkQueue queue = WorkQueue.create(tempDir, 5, 5, SearchEngine.BOARD, WorkQueue.Mode.COUNT,
+				Duration.ofMillis(100), units);
+
+		final WorkUnit failed = queue.claim().orElseThrow();
+		queue.fail(failed, new IllegalStateException("Search failed"));
+		Thread.sleep(150);
+		Assertions.assertEquals(0, queue.requeueExpired());
+		Assertions.assertEquals(List.of(failed.toKey() + ": java.lang.IllegalStateException: Search failed"), queue.getFailures());
+
+		final WorkUnit other = queue.claim().orElseThrow();
+		Assertions.assertNotEquals(failed.id, other.id);
+		Assertions.assertTrue(queue.claim().isEmpty());
+	}
+
+	@Test
+	public void coordinatorGivesUpWhenUnitFails(@TempDir Path tempDir) throws InterruptedException {
+		final Path queueDirectory = tempDir.resolve("queue");
+		final Thread failingWorker = new Thread(() -> {
+			while (WorkQueue.open(queueDirectory).isEmpty()) {
+				Thread.onSpinWait();
+			}
+			final WorkQueue queue = WorkQueue.open(queueDirectory).orElseThrow();
+			queue.fail(queue.claim().orElseThrow(), new IllegalStateException("Search failed"));
+		});
+		failingWorker.start();
+
+		final PuzzleSolver coordinator = new PuzzleSolver(5);
+		final IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+				() -> coordinator.countSolutionsDistributed(queueDirectory));
+		Assertions.assertTrue(e.getMessage().contains("Search failed"));
+		Assertions.assertTrue(WorkQueue.open(queueDirectory).orElseThrow().isFinished());
+		failingWorker.join();
+	}
+
+	@Test
+	public void unitFailingWithErrorIsRecordedAsFailed(@TempDir Path tempDir) throws InterruptedException {
+		final Path queueDirectory = tempDir.resolve("queue");
+		final Thread worker = new Thread(new SearchWorker(queueDirectory, 1) {
+			@Override
+			void search(final WorkQueue queue, final SearchContext context, final WorkUnit unit) {
+				throw new AssertionError("Search failed");
+			}
+		});
+		worker.start();
+
+		final PuzzleSolver coordinator = new PuzzleSolver(5);
+		final IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+				() -> coordinator.countSolutionsDistributed(queueDirectory));
+		Assertions.assertTrue(e.getMessage().contains("java.lang.AssertionError: Search failed"));
+		worker.join();
+	}
+
+	@Test
+	public void coordinatorGivesUpWithoutWorkers(@TempDir Path tempDir) {
+		final Path queueDirectory = tempDir.resolve("queue");
+		final PuzzleSolver coordinator = new PuzzleSolver(5);
+		coordinator.setWorkTimeout(Duration.ofMillis(200));
+
+		Assertions.assertThrows(IllegalStateException.class, () -> coordinator.countSolutionsDistributed(queueDirectory));
+		Assertions.assertTrue(WorkQueue.open(queueDirectory).orElseThrow().isFinished());
+	}
+
+	@Test
+	public void distributedSolutionsAreNotSupportedWithMeetInTheMiddle(@TempDir Path tempDir) {
+		final PuzzleSolver coordinator = new PuzzleSolver(5, SearchEngine.MEET_IN_THE_MIDDLE);
+		Assertions.assertThrows(UnsupportedOperationException.class,
+				() -> coordinator.writeSolutionsDistributed(tempDir.resolve("queue"), tempDir.resolve("solutions.bin")));
+		Assertions.assertTrue(WorkQueue.open(tempDir.resolve("queue")).isEmpty());
+	}
+}